@@ -0,0 +1,510 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Discovers approximate FDs from a random sample of the rows of a CSV file,
+ * for a first look at tables too large for FDDiscovery or FDValidator.
+ *
+ * The error of X --> A is measured as g3: the fraction of rows that would
+ * have to be removed for the FD to hold, which is the number of rows in each
+ * group of X that do not carry the group's most common value of A. Left-hand
+ * sides are searched level by level as in FDDiscovery, and X --> A is
+ * reported when its error on the sample is at most the bound and no subset of
+ * X already determines A within the bound.
+ *
+ * The confidence of each FD is a Hoeffding estimate of the probability that
+ * its error on the whole file is within the bound too. It treats the rows of
+ * the sample as independent, which is only an approximation for g3, so small
+ * samples of tables with many rare values should be read with care. An
+ * optional second pass over the whole file with FDValidator measures the
+ * exact error of every FD found and drops those above the bound.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public class ApproximateFDDiscovery {
+
+  private int sampleSize = 100_000;
+  private double maxError = 0.01;
+  private double confidence = 0.95;
+  private int maxLhs = 3;
+  private boolean verify = false;
+  private final long seed;
+
+  /**
+   * Creates a discovery with the default settings: 100000 sampled rows, an
+   * error bound of 1%, 95% confidence, at most 3 attributes on the left and
+   * no verification pass
+   *
+   * @param seed the seed that determines the sample
+   */
+  public ApproximateFDDiscovery(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @param n how many rows to sample
+   * @return this discovery
+   */
+  public ApproximateFDDiscovery sampleSize(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("The sample needs at least one row.");
+    }
+    this.sampleSize = n;
+    return this;
+  }
+
+  /**
+   * @param error the largest g3 error an FD may have, between 0 and 1
+   * @return this discovery
+   */
+  public ApproximateFDDiscovery maxError(double error) {
+    if (error < 0 || error > 1) {
+      throw new IllegalArgumentException("The error bound must be between 0 and 1, not " + error + ".");
+    }
+    this.maxError = error;
+    return this;
+  }
+
+  /**
+   * @param level the confidence level of the reported error bounds, between 0
+   *              and 1 exclusive
+   * @return this discovery
+   */
+  public ApproximateFDDiscovery confidence(double level) {
+    if (level <= 0 || level >= 1) {
+      throw new IllegalArgumentException("The confidence level must be between 0 and 1, not " + level + ".");
+    }
+    this.confidence = level;
+    return this;
+  }
+
+  /**
+   * @param n the largest left-hand side to look for
+   * @return this discovery
+   */
+  public ApproximateFDDiscovery maxLhs(int n) {
+    this.maxLhs = n;
+    return this;
+  }
+
+  /**
+   * @param verify whether to measure the exact error of every FD found on the
+   *               whole file
+   * @return this discovery
+   */
+  public ApproximateFDDiscovery verify(boolean verify) {
+    this.verify = verify;
+    return this;
+  }
+
+  /**
+   * Usage: ApproximateFDDiscovery file.csv [-error e] [-sample n]
+   * [-confidence c] [-maxLhs k] [-seed s] [-verify]
+   *
+   * @param args command line arguments
+   * @throws IOException if the file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: ApproximateFDDiscovery file.csv [-error e] [-sample n] [-confidence c] [-maxLhs k]"
+          + " [-seed s] [-verify]");
+      System.exit(2);
+    }
+    long seed = 0;
+    for (int i = 1; i < args.length - 1; i++) {
+      if (args[i].equals("-seed")) {
+        seed = Long.parseLong(args[i + 1]);
+      }
+    }
+    ApproximateFDDiscovery discovery = new ApproximateFDDiscovery(seed);
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "-error":
+          discovery.maxError(Double.parseDouble(args[++i]));
+          break;
+        case "-sample":
+          discovery.sampleSize(Integer.parseInt(args[++i]));
+          break;
+        case "-confidence":
+          discovery.confidence(Double.parseDouble(args[++i]));
+          break;
+        case "-maxLhs":
+          discovery.maxLhs(Integer.parseInt(args[++i]));
+          break;
+        case "-seed":
+          i++;
+          break;
+        case "-verify":
+          discovery.verify(true);
+          break;
+        default:
+          System.err.println("Unknown option " + args[i]);
+          System.exit(2);
+      }
+    }
+    System.out.print(discovery.discover(Paths.get(args[0])));
+  }
+
+  /**
+   * @param file a CSV file with a header line
+   * @return the approximate FDs found
+   * @throws IOException if the file cannot be read
+   */
+  public Result discover(Path file) throws IOException {
+    return this.discover(file, ExecutionContext.unbounded());
+  }
+
+  /**
+   * @param file a CSV file with a header line
+   * @param ctx  the limits of the search on the sample
+   * @return the approximate FDs found
+   * @throws IOException             if the file cannot be read
+   * @throws BudgetExceededException if a limit is hit; the FDs found so far
+   *                                 are attached as a Result
+   */
+  public Result discover(Path file, ExecutionContext ctx) throws IOException {
+    CsvTable table = CsvTable.sample(file, this.sampleSize, this.seed);
+    if (table.columnCount() > 64) {
+      throw new IllegalArgumentException("At most 64 columns are supported, not " + table.columnCount() + ".");
+    }
+    boolean complete = table.isComplete();
+    List<ApproximateFD> found = new ArrayList<>();
+    Result result = new Result(table.rows(), complete, found);
+    try {
+      new Search(table, ctx, found).run();
+    } catch (BudgetExceededException e) {
+      throw e.stoppedIn("ApproximateFDDiscovery", result);
+    }
+
+    if (this.verify && !complete && !found.isEmpty()) {
+      FDValidator.Report report = FDValidator.validate(file, result.toFDSet(),
+          Runtime.getRuntime().availableProcessors(), 0, true);
+      // FD orders but does not hash by value
+      Map<FD, Double> errors = new TreeMap<>();
+      for (FDValidator.Result checked : report.getResults()) {
+        errors.put(checked.getFD(), checked.getError());
+      }
+      List<ApproximateFD> verified = new ArrayList<>();
+      for (ApproximateFD fd : found) {
+        fd.error = errors.get(fd.fd);
+        if (fd.error <= this.maxError) {
+          verified.add(fd);
+        }
+      }
+      return new Result(table.rows(), false, verified);
+    }
+    if (complete) {
+      for (ApproximateFD fd : found) {
+        fd.error = fd.sampleError;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The level-wise search over one sample
+   */
+  private final class Search {
+    private final CsvTable table;
+    private final ExecutionContext ctx;
+    private final List<ApproximateFD> found;
+    private final int n;
+    private final List<List<Long>> acceptedLhs = new ArrayList<>();
+    private final ThreadLocal<int[]> scratch;
+    private final ThreadLocal<int[]> counts;
+
+    Search(CsvTable table, ExecutionContext ctx, List<ApproximateFD> found) {
+      this.table = table;
+      this.ctx = ctx;
+      this.found = found;
+      this.n = table.columnCount();
+      int maxCardinality = 0;
+      for (int c = 0; c < this.n; c++) {
+        this.acceptedLhs.add(new ArrayList<>());
+        maxCardinality = Math.max(maxCardinality, table.cardinality(c));
+      }
+      final int cardinality = maxCardinality;
+      this.scratch = ThreadLocal.withInitial(() -> {
+        int[] t = new int[table.rows()];
+        Arrays.fill(t, -1);
+        return t;
+      });
+      this.counts = ThreadLocal.withInitial(() -> new int[cardinality]);
+    }
+
+    void run() {
+      if (ApproximateFDDiscovery.this.maxLhs < 0) {
+        return;
+      }
+      // level 0 is the empty set, which determines the (nearly) constant
+      // columns; their FDs from single columns are then not minimal
+      Map<Long, StrippedPartition> level = new LinkedHashMap<>();
+      level.put(0L, StrippedPartition.all(this.table.rows()));
+      this.check(level);
+      level.clear();
+      for (int c = 0; c < this.n; c++) {
+        level.put(1L << c, StrippedPartition.of(this.table.codes(c), this.table.cardinality(c)));
+      }
+      for (int size = 1; size <= ApproximateFDDiscovery.this.maxLhs && !level.isEmpty(); size++) {
+        Map<Long, StrippedPartition> remaining = this.check(level);
+        level = (size < ApproximateFDDiscovery.this.maxLhs) ? this.generateNextLevel(remaining)
+            : Collections.emptyMap();
+      }
+    }
+
+    /**
+     * Measures X --> A for every X of the level and every A that no subset of
+     * X determines yet, and keeps the sets that can still lead to minimal FDs
+     */
+    private Map<Long, StrippedPartition> check(Map<Long, StrippedPartition> level) {
+      List<Long> masks = new ArrayList<>(level.keySet());
+      double[][] errors = new double[masks.size()][];
+      IntStream.range(0, masks.size()).parallel().forEach(i -> {
+        this.ctx.checkpoint();
+        long x = masks.get(i);
+        StrippedPartition partition = level.get(x);
+        errors[i] = new double[this.n];
+        Arrays.fill(errors[i], Double.NaN);
+        for (int a = 0; a < this.n; a++) {
+          if ((x & (1L << a)) == 0 && !this.determined(x, a)) {
+            errors[i][a] = this.g3(partition, a);
+          }
+        }
+      });
+
+      Map<Long, StrippedPartition> remaining = new LinkedHashMap<>();
+      for (int i = 0; i < masks.size(); i++) {
+        long x = masks.get(i);
+        boolean open = false;
+        for (int a = 0; a < this.n; a++) {
+          if (Double.isNaN(errors[i][a])) {
+            continue;
+          }
+          if (errors[i][a] <= ApproximateFDDiscovery.this.maxError) {
+            this.acceptedLhs.get(a).add(x);
+            this.found.add(this.approximateFD(x, a, errors[i][a]));
+          } else {
+            open = true;
+          }
+        }
+        // supersets of a unique set, or of one that already determines every
+        // other attribute, can only give non-minimal FDs
+        if (open && !level.get(x).isUnique()) {
+          remaining.put(x, level.get(x));
+        }
+      }
+      return remaining;
+    }
+
+    private boolean determined(long x, int a) {
+      for (long lhs : this.acceptedLhs.get(a)) {
+        if ((lhs & ~x) == 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * @return the fraction of rows outside the most common value of column a
+     *         within their group of the partition
+     */
+    private double g3(StrippedPartition partition, int a) {
+      int[] codes = this.table.codes(a);
+      int[] count = this.counts.get();
+      long removed = 0;
+      for (int g = 0; g < partition.groupCount(); g++) {
+        int[] group = partition.group(g);
+        int most = 0;
+        for (int row : group) {
+          most = Math.max(most, ++count[codes[row]]);
+        }
+        for (int row : group) {
+          count[codes[row]] = 0;
+        }
+        removed += group.length - most;
+      }
+      return (this.table.rows() == 0) ? 0.0 : (double) removed / this.table.rows();
+    }
+
+    private Map<Long, StrippedPartition> generateNextLevel(Map<Long, StrippedPartition> level) {
+      Map<Long, List<Long>> blocks = new HashMap<>();
+      for (long x : level.keySet()) {
+        blocks.computeIfAbsent(x & ~Long.highestOneBit(x), k -> new ArrayList<>()).add(x);
+      }
+      List<long[]> joins = new ArrayList<>();
+      for (List<Long> block : blocks.values()) {
+        for (int i = 0; i < block.size(); i++) {
+          for (int j = i + 1; j < block.size(); j++) {
+            long x = block.get(i) | block.get(j);
+            boolean allSubsets = true;
+            for (long bits = x; bits != 0 && allSubsets; bits &= bits - 1) {
+              allSubsets = level.containsKey(x & ~Long.lowestOneBit(bits));
+            }
+            if (allSubsets) {
+              joins.add(new long[] { x, block.get(i), block.get(j) });
+            }
+          }
+        }
+      }
+      this.ctx.charge(joins.size());
+
+      StrippedPartition[] products = new StrippedPartition[joins.size()];
+      IntStream.range(0, joins.size()).parallel().forEach(i -> {
+        this.ctx.checkpoint();
+        long[] join = joins.get(i);
+        products[i] = level.get(join[1]).product(level.get(join[2]), this.scratch.get());
+      });
+      Map<Long, StrippedPartition> next = new LinkedHashMap<>();
+      for (int i = 0; i < products.length; i++) {
+        next.put(joins.get(i)[0], products[i]);
+      }
+      return next;
+    }
+
+    private ApproximateFD approximateFD(long lhs, int a, double error) {
+      Set<String> left = new TreeSet<>();
+      for (long bits = lhs; bits != 0; bits &= bits - 1) {
+        left.add(this.table.column(Long.numberOfTrailingZeros(bits)));
+      }
+      FD fd = new FD(left, Collections.singleton(this.table.column(a)));
+      int rows = this.table.rows();
+      double slack = Math.sqrt(Math.log(1 / (1 - ApproximateFDDiscovery.this.confidence)) / (2.0 * rows));
+      double margin = ApproximateFDDiscovery.this.maxError - error;
+      double within = 1 - Math.exp(-2.0 * rows * margin * margin);
+      return new ApproximateFD(fd, error, Math.min(1.0, error + slack), within);
+    }
+  }
+
+  /**
+   * An FD found on the sample, with its estimated error
+   */
+  public static final class ApproximateFD {
+    private final FD fd;
+    private final double sampleError;
+    private final double errorBound;
+    private final double confidence;
+    private double error = Double.NaN;
+
+    ApproximateFD(FD fd, double sampleError, double errorBound, double confidence) {
+      this.fd = fd;
+      this.sampleError = sampleError;
+      this.errorBound = errorBound;
+      this.confidence = confidence;
+    }
+
+    /**
+     * @return the FD
+     */
+    public FD getFD() {
+      return this.fd;
+    }
+
+    /**
+     * @return the g3 error of the FD on the sample
+     */
+    public double getSampleError() {
+      return this.sampleError;
+    }
+
+    /**
+     * @return an upper bound on the error on the whole file that holds with
+     *         the configured confidence level
+     */
+    public double getErrorBound() {
+      return this.errorBound;
+    }
+
+    /**
+     * @return the estimated probability that the error on the whole file is
+     *         within the configured bound
+     */
+    public double getConfidence() {
+      return this.confidence;
+    }
+
+    /**
+     * @return the exact error on the whole file, or NaN if it was not measured
+     */
+    public double getError() {
+      return this.error;
+    }
+
+    @Override
+    public String toString() {
+      String str = String.format("%s\tg3 = %.6f\tbound = %.6f\tconfidence = %.4f", this.fd, this.sampleError,
+          this.errorBound, this.confidence);
+      return Double.isNaN(this.error) ? str : str + String.format("\texact = %.6f", this.error);
+    }
+  }
+
+  /**
+   * The FDs found on one sample
+   */
+  public static final class Result {
+    private final int sampleRows;
+    private final boolean complete;
+    private final List<ApproximateFD> fds;
+
+    Result(int sampleRows, boolean complete, List<ApproximateFD> fds) {
+      this.sampleRows = sampleRows;
+      this.complete = complete;
+      this.fds = Collections.unmodifiableList(fds);
+    }
+
+    /**
+     * @return the number of rows in the sample
+     */
+    public int getSampleRows() {
+      return this.sampleRows;
+    }
+
+    /**
+     * @return true if the sample was the whole file, so every error is exact
+     */
+    public boolean isComplete() {
+      return this.complete;
+    }
+
+    /**
+     * @return the FDs with their errors, by size of left-hand side
+     */
+    public List<ApproximateFD> getFDs() {
+      return this.fds;
+    }
+
+    /**
+     * @return the FDs as a plain FD set
+     */
+    public FDSet toFDSet() {
+      FDSet fdset = new FDSet();
+      for (ApproximateFD fd : this.fds) {
+        fdset.add(fd.fd);
+      }
+      return fdset;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder str = new StringBuilder();
+      str.append(this.sampleRows).append(this.complete ? " rows (the whole file)\n" : " sampled rows\n");
+      for (ApproximateFD fd : this.fds) {
+        str.append(fd).append("\n");
+      }
+      return str.toString();
+    }
+  }
+}
@@ -0,0 +1,159 @@
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A dictionary that numbers attribute names 0..n-1 in sorted order, so that
+ * attribute sets can be encoded as bitsets (or as a single long when there are
+ * at most 64 attributes).
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class AttributeIndex {
+  private final String[] names;
+  private final Map<String, Integer> positions;
+
+  /**
+   * Creates an index over the given attributes (duplicates are ignored)
+   *
+   * @param attrs attribute names
+   */
+  public AttributeIndex(Collection<String> attrs) {
+    this.names = new TreeSet<>(attrs).toArray(new String[0]);
+    this.positions = new HashMap<>();
+    for (int i = 0; i < this.names.length; i++) {
+      this.positions.put(this.names[i], i);
+    }
+  }
+
+  /**
+   * @param fdset an FD set
+   * @return an index over every attribute mentioned in the FD set
+   */
+  public static AttributeIndex of(FDSet fdset) {
+    Set<String> attrs = new TreeSet<>();
+    for (FD fd : fdset) {
+      attrs.addAll(fd.getLeft());
+      attrs.addAll(fd.getRight());
+    }
+    return new AttributeIndex(attrs);
+  }
+
+  /**
+   * @param rel   A relation (as an attribute set)
+   * @param fdset an FD set
+   * @return an index over the relation and every attribute in the FD set
+   */
+  public static AttributeIndex of(Set<String> rel, FDSet fdset) {
+    Set<String> attrs = new TreeSet<>(rel);
+    for (FD fd : fdset) {
+      attrs.addAll(fd.getLeft());
+      attrs.addAll(fd.getRight());
+    }
+    return new AttributeIndex(attrs);
+  }
+
+  /**
+   * @return the number of attributes
+   */
+  public int size() {
+    return this.names.length;
+  }
+
+  /**
+   * @return the number of longs needed to hold one attribute bitset
+   */
+  public int words() {
+    return (this.names.length + 63) >>> 6;
+  }
+
+  /**
+   * @param i an attribute number
+   * @return the name of the attribute
+   */
+  public String name(int i) {
+    return this.names[i];
+  }
+
+  /**
+   * @param attr an attribute name
+   * @return the number of the attribute, or -1 if it is not in this index
+   */
+  public int indexOf(String attr) {
+    Integer i = this.positions.get(attr);
+    return (i == null) ? -1 : i;
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the attribute set as a bitset
+   * @throws IllegalArgumentException if an attribute is not in this index
+   */
+  public BitSet encode(Set<String> attrs) {
+    BitSet bits = new BitSet(this.names.length);
+    for (String attr : attrs) {
+      bits.set(this.position(attr));
+    }
+    return bits;
+  }
+
+  /**
+   * @param bits an attribute bitset
+   * @return the attribute set
+   */
+  public Set<String> decode(BitSet bits) {
+    Set<String> attrs = new TreeSet<>();
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+      attrs.add(this.names[i]);
+    }
+    return attrs;
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the attribute set as a bitmask
+   * @throws IllegalArgumentException if an attribute is not in this index, or
+   *                                  if there are more than 64 attributes
+   */
+  public long mask(Set<String> attrs) {
+    if (this.names.length > 64) {
+      throw new IllegalArgumentException("Bitmasks hold at most 64 attributes, not " + this.names.length + ".");
+    }
+    long mask = 0L;
+    for (String attr : attrs) {
+      mask |= 1L << this.position(attr);
+    }
+    return mask;
+  }
+
+  /**
+   * @param mask an attribute bitmask
+   * @return the attribute set
+   */
+  public Set<String> decode(long mask) {
+    Set<String> attrs = new TreeSet<>();
+    for (long m = mask; m != 0; m &= m - 1) {
+      attrs.add(this.names[Long.numberOfTrailingZeros(m)]);
+    }
+    return attrs;
+  }
+
+  /**
+   * @return a bitmask with every attribute of this index
+   */
+  public long fullMask() {
+    return (this.names.length == 64) ? -1L : (1L << this.names.length) - 1;
+  }
+
+  private int position(String attr) {
+    Integer i = this.positions.get(attr);
+    if (i == null) {
+      throw new IllegalArgumentException("Unknown attribute: " + attr);
+    }
+    return i;
+  }
+}
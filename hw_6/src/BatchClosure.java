@@ -0,0 +1,280 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Computes attribute closures for many attribute sets against one FD set.
+ *
+ * The FDs are encoded once as two parallel arrays of bitsets, one for the
+ * left-hand sides and one for the right-hand sides, and every attribute set
+ * is a long with one bit per attribute, so at most 64 attributes are
+ * supported. A closure is then a fixpoint of "if lhs[i] is contained in x,
+ * add rhs[i] to x" over all FDs, which needs only ANDs, ORs and compares.
+ *
+ * Two kernels run that loop. The scalar one closes one set at a time. The
+ * vector one (vector/VectorClosureKernel.java) closes as many sets at once as
+ * there are long lanes in a SIMD register, with jdk.incubator.vector. Since
+ * that module is still incubating, and since the vector kernel measured
+ * slower than the scalar one, it is only used when asked for:
+ *
+ * javac --add-modules jdk.incubator.vector -d out *.java vector/*.java
+ * java --add-modules jdk.incubator.vector -Dfd.vector=true -cp out BatchClosure
+ *
+ * The scalar kernel is used whenever -Dfd.vector=true is not given, the
+ * vector kernel is not on the class path, or the module is missing. Large
+ * batches are also split across cores.
+ *
+ * Running "java BatchClosure [attributes] [fds] [sets]" measures the
+ * throughput of both kernels against the per-set closure loop of
+ * Normalizer.findSuperkeys.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class BatchClosure {
+
+  /** Batches at least this large are split across cores */
+  private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+  /**
+   * Closes sets[from..to) in place against the FDs lhs[i] --> rhs[i]
+   */
+  interface Kernel {
+    void close(long[] lhs, long[] rhs, long[] sets, int from, int to);
+  }
+
+  private static final Kernel SCALAR = BatchClosure::closeScalar;
+  private static final Kernel VECTOR = loadVectorKernel();
+
+  private final AttributeIndex index;
+  private final long[] lhs;
+  private final long[] rhs;
+  private final Kernel kernel;
+
+  /**
+   * @param index the attributes, at most 64
+   * @param fdset the FDs, over attributes of the index
+   * @param kernel the kernel to use
+   */
+  private BatchClosure(AttributeIndex index, FDSet fdset, Kernel kernel) {
+    if (index.size() > 64) {
+      throw new IllegalArgumentException("At most 64 attributes are supported, not " + index.size() + ".");
+    }
+    this.index = index;
+    this.kernel = kernel;
+    this.lhs = new long[fdset.size()];
+    this.rhs = new long[fdset.size()];
+    int i = 0;
+    for (FD fd : fdset) {
+      this.lhs[i] = index.mask(fd.left());
+      this.rhs[i] = index.mask(fd.right());
+      i++;
+    }
+  }
+
+  /**
+   * @param index the attributes, at most 64
+   * @param fdset the FDs, over attributes of the index
+   * @return a batch closure using the vector kernel if it was loaded
+   */
+  public static BatchClosure of(AttributeIndex index, FDSet fdset) {
+    return new BatchClosure(index, fdset, (VECTOR != null) ? VECTOR : SCALAR);
+  }
+
+  /**
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set over the relation
+   * @return a batch closure using the vector kernel if it was loaded
+   */
+  public static BatchClosure of(Set<String> rel, FDSet fdset) {
+    return of(AttributeIndex.of(rel, fdset), fdset);
+  }
+
+  /**
+   * @param index the attributes, at most 64
+   * @param fdset the FDs, over attributes of the index
+   * @return a batch closure that always uses the scalar kernel
+   */
+  public static BatchClosure scalar(AttributeIndex index, FDSet fdset) {
+    return new BatchClosure(index, fdset, SCALAR);
+  }
+
+  /**
+   * @return true if the vector kernel was asked for with -Dfd.vector=true
+   *         and loaded
+   */
+  public static boolean vectorAvailable() {
+    return VECTOR != null;
+  }
+
+  /**
+   * @return true if this batch closure uses the vector kernel
+   */
+  public boolean isVectorized() {
+    return this.kernel != SCALAR;
+  }
+
+  /**
+   * @return the attributes and their bit positions
+   */
+  public AttributeIndex index() {
+    return this.index;
+  }
+
+  /**
+   * Replaces every attribute set by its closure
+   *
+   * @param sets attribute sets as bitmasks of the index
+   */
+  public void closeAll(long[] sets) {
+    if (sets.length < PARALLEL_THRESHOLD) {
+      this.kernel.close(this.lhs, this.rhs, sets, 0, sets.length);
+      return;
+    }
+    int chunk = PARALLEL_THRESHOLD / 4;
+    IntStream.range(0, (sets.length + chunk - 1) / chunk).parallel().forEach(c -> this.kernel.close(this.lhs,
+        this.rhs, sets, c * chunk, Math.min(sets.length, (c + 1) * chunk)));
+  }
+
+  /**
+   * @param set an attribute set as a bitmask of the index
+   * @return its closure
+   */
+  public long closure(long set) {
+    long[] one = { set };
+    SCALAR.close(this.lhs, this.rhs, one, 0, 1);
+    return one[0];
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return its closure
+   */
+  public Set<String> closure(Set<String> attrs) {
+    return this.index.decode(this.closure(this.index.mask(attrs)));
+  }
+
+  private static void closeScalar(long[] lhs, long[] rhs, long[] sets, int from, int to) {
+    for (int s = from; s < to; s++) {
+      long x = sets[s];
+      long before;
+      do {
+        before = x;
+        for (int i = 0; i < lhs.length; i++) {
+          if ((lhs[i] & ~x) == 0) {
+            x |= rhs[i];
+          }
+        }
+      } while (x != before);
+      sets[s] = x;
+    }
+  }
+
+  private static Kernel loadVectorKernel() {
+    if (!Boolean.getBoolean("fd.vector")) {
+      return null;
+    }
+    MethodHandle close;
+    try {
+      close = MethodHandles.publicLookup().findStatic(Class.forName("vector.VectorClosureKernel"), "close",
+          MethodType.methodType(void.class, long[].class, long[].class, long[].class, int.class, int.class));
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // not compiled in, or the jdk.incubator.vector module was not added
+      return null;
+    }
+    return (lhs, rhs, sets, from, to) -> {
+      try {
+        close.invokeExact(lhs, rhs, sets, from, to);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+
+  /**
+   * Usage: BatchClosure [attributes] [fds] [sets]
+   *
+   * @param args command line arguments
+   */
+  public static void main(String[] args) {
+    int attributes = (args.length > 0) ? Integer.parseInt(args[0]) : 24;
+    int fds = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+    int n = (args.length > 2) ? Integer.parseInt(args[2]) : 1 << 20;
+    FDGenerator.Workload workload = new FDGenerator(42).attributes(attributes).fds(fds).generate();
+    AttributeIndex index = AttributeIndex.of(workload.getRelation(), workload.getFDSet());
+    long[] sets = new Random(7).longs(n).map(x -> x & index.fullMask()).toArray();
+    System.out.println(attributes + " attributes, " + fds + " FDs, " + n + " sets, vector kernel "
+        + (vectorAvailable() ? "available" : "not available"));
+
+    long[] expected = sets.clone();
+    BatchClosure scalar = scalar(index, workload.getFDSet());
+    bench("scalar kernel", n, () -> {
+      long[] work = sets.clone();
+      scalar.closeAll(work);
+      System.arraycopy(work, 0, expected, 0, n);
+    });
+    if (vectorAvailable()) {
+      BatchClosure vector = of(index, workload.getFDSet());
+      long[] work = sets.clone();
+      bench("vector kernel", n, () -> {
+        System.arraycopy(sets, 0, work, 0, n);
+        vector.closeAll(work);
+      });
+      if (!Arrays.equals(work, expected)) {
+        throw new IllegalStateException("The vector kernel disagrees with the scalar kernel.");
+      }
+    }
+    // the closure loop of Normalizer.findSuperkeys, on a smaller sample
+    int m = Math.min(n, 1 << 16);
+    List<Set<String>> named = decodeAll(index, sets, m);
+    bench("findSuperkeys loop", m, () -> {
+      Set<String> canDetermine = new HashSet<>();
+      for (int s = 0; s < m; s++) {
+        canDetermine.clear();
+        canDetermine.addAll(named.get(s));
+        int startSize;
+        do {
+          startSize = canDetermine.size();
+          for (FD fd : workload.getFDSet()) {
+            if (canDetermine.containsAll(fd.getLeft())) {
+              canDetermine.addAll(fd.getRight());
+            }
+          }
+        } while (canDetermine.size() != startSize);
+      }
+    });
+  }
+
+  private static List<Set<String>> decodeAll(AttributeIndex index, long[] sets, int m) {
+    List<Set<String>> named = new ArrayList<>(m);
+    for (int s = 0; s < m; s++) {
+      named.add(index.decode(sets[s]));
+    }
+    return named;
+  }
+
+  /**
+   * Runs the task a few times to warm up, then reports the best of five runs
+   */
+  private static void bench(String name, int sets, Runnable task) {
+    for (int i = 0; i < 3; i++) {
+      task.run();
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      long start = System.nanoTime();
+      task.run();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.printf("%-20s %10.1f ms %14.0f sets/s%n", name, best / 1e6, sets / (best / 1e9));
+  }
+}
@@ -0,0 +1,373 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCNF decomposition over many (relation, FD set) jobs concurrently.
+ *
+ * Jobs are read lazily from a file or from every regular file of a directory.
+ * A job is an "R:" line followed by its FDs, in the format of FDFormat, so one
+ * file may hold several jobs. Each job runs under its own ExecutionContext with
+ * a deadline; a job that misses it is reported as TIMEOUT and cancelled, and
+ * its slot goes to the next job right away. At most parallelism jobs are read
+ * and running at once, and results are written as soon as they are known, one
+ * tab-separated line per job:
+ *
+ * name  OK|TIMEOUT|ERROR  milliseconds  schemas or error message
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public class BatchNormalizer {
+
+  private final int parallelism;
+  private final long timeoutMillis;
+
+  /**
+   * @param parallelism   the number of jobs to run at once
+   * @param timeoutMillis how long a single job may run
+   */
+  public BatchNormalizer(int parallelism, long timeoutMillis) {
+    if (parallelism < 1 || timeoutMillis < 1) {
+      throw new IllegalArgumentException("Parallelism and timeout must be positive.");
+    }
+    this.parallelism = parallelism;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Usage: BatchNormalizer input [output] [-threads n] [-timeout ms]
+   *
+   * @param args command line arguments
+   * @throws Exception if the input cannot be read or the output written
+   */
+  public static void main(String[] args) throws Exception {
+    List<String> files = new ArrayList<>();
+    int threads = Runtime.getRuntime().availableProcessors();
+    long timeout = 60_000;
+    for (int i = 0; i < args.length; i++) {
+      if ("-threads".equals(args[i]) && i + 1 < args.length) {
+        threads = Integer.parseInt(args[++i]);
+      } else if ("-timeout".equals(args[i]) && i + 1 < args.length) {
+        timeout = Long.parseLong(args[++i]);
+      } else {
+        files.add(args[i]);
+      }
+    }
+    if (files.isEmpty() || files.size() > 2) {
+      System.err.println("Usage: BatchNormalizer input [output] [-threads n] [-timeout ms]");
+      System.exit(2);
+    }
+
+    BatchNormalizer batch = new BatchNormalizer(threads, timeout);
+    Writer out = (files.size() == 2)
+        ? Files.newBufferedWriter(Paths.get(files.get(1)), StandardCharsets.UTF_8)
+        : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    Summary summary;
+    try {
+      summary = batch.run(Paths.get(files.get(0)), out);
+    } finally {
+      out.flush();
+      if (files.size() == 2) {
+        out.close();
+      }
+    }
+    System.err.println(summary);
+    System.exit(summary.getFailed() + summary.getTimedOut() == 0 ? 0 : 1);
+  }
+
+  /**
+   * Runs every job under the given file or directory
+   *
+   * @param input a job file, or a directory of job files
+   * @param out   where to write one result line per job (flushed, not closed)
+   * @return how many jobs succeeded, timed out and failed
+   * @throws IOException if the input cannot be read or the output written
+   */
+  public Summary run(Path input, Writer out) throws IOException {
+    ExecutorService workers = newExecutor();
+    ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "batch-timeout");
+      t.setDaemon(true);
+      return t;
+    });
+    Semaphore inFlight = new Semaphore(this.parallelism);
+    Summary summary = new Summary();
+    ResultWriter results = new ResultWriter(out);
+    try {
+      for (Path file : jobFiles(input)) {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+          JobReader jobs = new JobReader(file.getFileName().toString(), in);
+          Job job;
+          while ((job = jobs.next()) != null) {
+            inFlight.acquireUninterruptibly();
+            this.submit(job, workers, timer, inFlight, summary, results);
+          }
+        }
+      }
+      // wait for the stragglers: every job gives its permit back exactly once
+      inFlight.acquireUninterruptibly(this.parallelism);
+    } finally {
+      workers.shutdownNow();
+      timer.shutdownNow();
+    }
+    results.check();
+    return summary;
+  }
+
+  /**
+   * Starts one job. Its timeout is armed when it starts running, and whichever
+   * of the job and its timeout finishes first writes the job's result line and
+   * gives its permit back.
+   */
+  private void submit(Job job, ExecutorService workers, ScheduledExecutorService timer, Semaphore inFlight,
+      Summary summary, ResultWriter results) {
+    AtomicBoolean reported = new AtomicBoolean(false);
+    workers.execute(() -> {
+      long start = System.nanoTime();
+      ExecutionContext ctx = new ExecutionContext().timeout(this.timeoutMillis);
+      ScheduledFuture<?> timeout = timer.schedule(() -> {
+        if (reported.compareAndSet(false, true)) {
+          ctx.cancel();
+          summary.timedOut.incrementAndGet();
+          results.write(job.name + "\tTIMEOUT\t" + elapsed(start) + "\t");
+          inFlight.release();
+        }
+      }, this.timeoutMillis, TimeUnit.MILLISECONDS);
+
+      String line;
+      AtomicInteger outcome;
+      try {
+        if (job.error != null) {
+          throw job.error;
+        }
+        Set<Set<String>> schemas = Normalizer.BCNFDecompose(job.relation, job.fdset, ctx, null);
+        line = job.name + "\tOK\t" + elapsed(start) + "\t" + format(schemas);
+        outcome = summary.ok;
+      } catch (BudgetExceededException e) {
+        line = job.name + "\tTIMEOUT\t" + elapsed(start) + "\t" + e.getMessage();
+        outcome = summary.timedOut;
+      } catch (Throwable e) {
+        line = job.name + "\tERROR\t" + elapsed(start) + "\t" + e;
+        outcome = summary.failed;
+      }
+      if (reported.compareAndSet(false, true)) {
+        timeout.cancel(false);
+        outcome.incrementAndGet();
+        results.write(line);
+        inFlight.release();
+      }
+    });
+  }
+
+  /**
+   * Creates an executor with one virtual thread per task when the runtime has
+   * them (Java 21+), otherwise a pool of daemon platform threads. Neither bounds
+   * the number of threads: callers bound concurrency themselves, so that a job
+   * that ignores its interrupt cannot hold on to a pool slot.
+   *
+   * @return a new executor
+   */
+  static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger n = new AtomicInteger();
+      return Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "normalizer-" + n.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+  private static List<Path> jobFiles(Path input) throws IOException {
+    if (!Files.isDirectory(input)) {
+      return Collections.singletonList(input);
+    }
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> dir = Files.newDirectoryStream(input)) {
+      for (Path file : dir) {
+        if (Files.isRegularFile(file)) {
+          files.add(file);
+        }
+      }
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  private static long elapsed(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  /**
+   * @return the schemas in sorted order, so that results can be diffed
+   */
+  private static String format(Set<Set<String>> schemas) {
+    Set<String> sorted = new TreeSet<>();
+    for (Set<String> schema : schemas) {
+      sorted.add(new TreeSet<>(schema).toString());
+    }
+    return sorted.toString();
+  }
+
+  /**
+   * Counts of finished jobs by outcome
+   */
+  public static class Summary {
+    private final AtomicInteger ok = new AtomicInteger();
+    private final AtomicInteger timedOut = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @return the number of jobs that were decomposed
+     */
+    public int getOk() {
+      return this.ok.get();
+    }
+
+    /**
+     * @return the number of jobs that missed their deadline
+     */
+    public int getTimedOut() {
+      return this.timedOut.get();
+    }
+
+    /**
+     * @return the number of jobs that could not be read or failed
+     */
+    public int getFailed() {
+      return this.failed.get();
+    }
+
+    @Override
+    public String toString() {
+      return "ok=" + this.ok + " timeout=" + this.timedOut + " error=" + this.failed;
+    }
+  }
+
+  /**
+   * One relation with its FDs
+   */
+  private static class Job {
+    private final String name;
+    private final Set<String> relation;
+    private final FDSet fdset;
+    private final RuntimeException error;
+
+    Job(String name, Set<String> relation, FDSet fdset, RuntimeException error) {
+      this.name = name;
+      this.relation = relation;
+      this.fdset = fdset;
+      this.error = error;
+    }
+  }
+
+  /**
+   * Splits a file into jobs at its "R:" lines, one job at a time
+   */
+  private static class JobReader {
+    private final String fileName;
+    private final BufferedReader in;
+    private String pending;
+    private int count = 0;
+
+    JobReader(String fileName, BufferedReader in) {
+      this.fileName = fileName;
+      this.in = in;
+    }
+
+    /**
+     * @return the next job, or null at the end of the file
+     */
+    Job next() throws IOException {
+      StringBuilder text = new StringBuilder();
+      if (this.pending != null) {
+        text.append(this.pending).append('\n');
+        this.pending = null;
+      }
+      boolean hasRelation = text.length() > 0;
+      boolean hasContent = hasRelation;
+      String line;
+      while ((line = this.in.readLine()) != null) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith("R:")) {
+          if (hasRelation) {
+            this.pending = trimmed;
+            break;
+          }
+          hasRelation = true;
+        }
+        if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+          hasContent = true;
+        }
+        text.append(line).append('\n');
+      }
+      if (!hasContent) {
+        return null;
+      }
+      this.count++;
+      String name = (this.count == 1 && this.pending == null) ? this.fileName : this.fileName + "#" + this.count;
+      try {
+        FDGenerator.Workload workload = FDFormat.readWorkload(new StringReader(text.toString()));
+        return new Job(name, workload.getRelation(), workload.getFDSet(), null);
+      } catch (IllegalArgumentException e) {
+        // a malformed job fails on its own, like any other job error
+        return new Job(name, null, null, e);
+      }
+    }
+  }
+
+  /**
+   * Serializes result lines from the worker and timer threads onto the output
+   */
+  private static class ResultWriter {
+    private final Writer out;
+    private IOException error;
+
+    ResultWriter(Writer out) {
+      this.out = out;
+    }
+
+    synchronized void write(String line) {
+      if (this.error != null) {
+        return;
+      }
+      try {
+        this.out.write(line);
+        this.out.write('\n');
+        this.out.flush();
+      } catch (IOException e) {
+        this.error = e;
+      }
+    }
+
+    synchronized void check() throws IOException {
+      if (this.error != null) {
+        throw this.error;
+      }
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Thrown when an operation run under an ExecutionContext hits one of its
+ * limits. Where the operation has a meaningful partial result (the FDs of a
+ * closure derived so far, the superkeys found so far) it is attached.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public class BudgetExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The limit that was hit
+   */
+  public enum Limit {
+    DEADLINE, GENERATED, MEMORY, CANCELLED
+  }
+
+  private final Limit limit;
+  private transient Object partialResult;
+  private String operation;
+
+  /**
+   * @param limit   the limit that was hit
+   * @param message what happened
+   */
+  public BudgetExceededException(Limit limit, String message) {
+    super(message);
+    this.limit = limit;
+  }
+
+  /**
+   * @return the limit that was hit
+   */
+  public Limit getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * @return the partial result, or null if there is none
+   */
+  public Object getPartialResult() {
+    return this.partialResult;
+  }
+
+  /**
+   * Attaches a partial result and names the operation that stopped, unless an
+   * inner operation has already done so
+   *
+   * @param operation the operation that stopped
+   * @param partial   what it had computed so far
+   * @return this exception, to be rethrown
+   */
+  BudgetExceededException stoppedIn(String operation, Object partial) {
+    if (this.partialResult == null) {
+      this.partialResult = partial;
+    }
+    if (this.operation == null) {
+      this.operation = operation;
+    }
+    return this;
+  }
+
+  @Override
+  public String getMessage() {
+    return (this.operation == null) ? super.getMessage() : this.operation + " stopped: " + super.getMessage();
+  }
+}
@@ -0,0 +1,295 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A table read from a CSV file whose first line names the columns. Every
+ * column is dictionary-encoded: each distinct value is replaced by a small
+ * integer, so that equal values compare as equal ints and the strings can be
+ * dropped right after reading.
+ *
+ * Fields follow RFC 4180: separated by commas, optionally enclosed in double
+ * quotes, with "" standing for a quote inside a quoted field.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class CsvTable {
+
+  /**
+   * The values of one column that are in the sample, each with a code and the
+   * number of sampled rows that hold it. A value is forgotten as soon as its
+   * last row is evicted, and its code is handed out again.
+   */
+  private static final class Dictionary {
+    final Map<String, Integer> codes = new HashMap<>();
+    String[] values = new String[16];
+    int[] refs = new int[16];
+    int[] free = new int[16];
+    int freeCount;
+    int next;
+
+    int acquire(String value) {
+      Integer code = this.codes.get(value);
+      if (code == null) {
+        if (this.freeCount > 0) {
+          code = this.free[--this.freeCount];
+        } else {
+          code = this.next++;
+          if (code == this.values.length) {
+            this.values = Arrays.copyOf(this.values, 2 * code);
+            this.refs = Arrays.copyOf(this.refs, 2 * code);
+          }
+        }
+        this.codes.put(value, code);
+        this.values[code] = value;
+      }
+      this.refs[code]++;
+      return code;
+    }
+
+    void release(int code) {
+      if (--this.refs[code] == 0) {
+        this.codes.remove(this.values[code]);
+        this.values[code] = null;
+        if (this.freeCount == this.free.length) {
+          this.free = Arrays.copyOf(this.free, 2 * this.freeCount);
+        }
+        this.free[this.freeCount++] = code;
+      }
+    }
+  }
+
+  private final String[] columns;
+  private final int[][] codes;
+  private final int[] cardinalities;
+  private final int rows;
+  private final boolean complete;
+
+  private CsvTable(String[] columns, int[][] codes, int[] cardinalities, int rows, boolean complete) {
+    this.columns = columns;
+    this.codes = codes;
+    this.cardinalities = cardinalities;
+    this.rows = rows;
+    this.complete = complete;
+  }
+
+  /**
+   * Reads and encodes a whole CSV file
+   *
+   * @param file a CSV file with a header line
+   * @return the encoded table
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  public static CsvTable read(Path file) throws IOException {
+    return sample(file, Integer.MAX_VALUE, 0L);
+  }
+
+  /**
+   * Reads a uniform random sample of the rows of a CSV file (reservoir
+   * sampling), so that only the sample is ever held in memory: a value whose
+   * rows have all been evicted is dropped from its column's dictionary. If the
+   * file has no more than maxRows rows, all of them are read in file order.
+   * Blank lines are skipped, except in a file with a single column, where
+   * they are rows whose value is empty.
+   *
+   * @param file    a CSV file with a header line
+   * @param maxRows the sample size
+   * @param seed    the seed that determines the sample
+   * @return the encoded sample
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  public static CsvTable sample(Path file, int maxRows, long seed) throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      List<String> header = readRecord(in);
+      if (header == null) {
+        throw new IOException(file + " is empty.");
+      }
+      String[] columns = header.toArray(new String[0]);
+      if (new LinkedHashSet<>(header).size() != columns.length) {
+        throw new IOException(file + " has duplicate column names.");
+      }
+
+      Dictionary[] dictionaries = new Dictionary[columns.length];
+      for (int c = 0; c < columns.length; c++) {
+        dictionaries[c] = new Dictionary();
+      }
+      int[][] codes = new int[columns.length][16];
+      Random rnd = new Random(seed);
+      long seen = 0;
+      int rows = 0;
+      List<String> record;
+      while ((record = readRecord(in)) != null) {
+        // a blank line, unless there is only one column and it is an empty value
+        if (columns.length > 1 && record.size() == 1 && record.get(0).isEmpty()) {
+          continue;
+        }
+        if (record.size() != columns.length) {
+          throw new IOException(file + ": record " + (seen + 1) + " has " + record.size() + " fields, expected "
+              + columns.length + ".");
+        }
+        seen++;
+        int slot;
+        if (rows < maxRows) {
+          slot = rows++;
+          if (slot == codes[0].length) {
+            for (int c = 0; c < columns.length; c++) {
+              codes[c] = Arrays.copyOf(codes[c], 2 * slot);
+            }
+          }
+        } else {
+          long j = (long) (rnd.nextDouble() * seen);
+          if (j >= maxRows) {
+            continue;
+          }
+          slot = (int) j;
+          for (int c = 0; c < columns.length; c++) {
+            dictionaries[c].release(codes[c][slot]);
+          }
+        }
+        for (int c = 0; c < columns.length; c++) {
+          codes[c][slot] = dictionaries[c].acquire(record.get(c));
+        }
+      }
+
+      // renumber the values in order of their first sampled row, so that the
+      // codes of every column run from 0 to its number of distinct values
+      int[] cardinalities = new int[columns.length];
+      for (int c = 0; c < columns.length; c++) {
+        codes[c] = Arrays.copyOf(codes[c], rows);
+        int[] renumbered = new int[dictionaries[c].next];
+        Arrays.fill(renumbered, -1);
+        int distinct = 0;
+        for (int row = 0; row < rows; row++) {
+          int code = codes[c][row];
+          if (renumbered[code] < 0) {
+            renumbered[code] = distinct++;
+          }
+          codes[c][row] = renumbered[code];
+        }
+        cardinalities[c] = distinct;
+        dictionaries[c] = null;
+      }
+      return new CsvTable(columns, codes, cardinalities, rows, seen == rows);
+    }
+  }
+
+  /**
+   * @return the number of columns
+   */
+  public int columnCount() {
+    return this.columns.length;
+  }
+
+  /**
+   * @return the number of rows
+   */
+  public int rows() {
+    return this.rows;
+  }
+
+  /**
+   * @return true if every row of the file is in the table, false if rows were
+   *         left out of the sample
+   */
+  public boolean isComplete() {
+    return this.complete;
+  }
+
+  /**
+   * @param c a column number
+   * @return the name of the column
+   */
+  public String column(int c) {
+    return this.columns[c];
+  }
+
+  /**
+   * @param c a column number
+   * @return the encoded values of the column, one per row (not to be modified)
+   */
+  public int[] codes(int c) {
+    return this.codes[c];
+  }
+
+  /**
+   * Codes run from 0 to one less than this, in order of first appearance
+   *
+   * @param c a column number
+   * @return the number of distinct values of the column in the table
+   */
+  public int cardinality(int c) {
+    return this.cardinalities[c];
+  }
+
+  /**
+   * @return the columns as a relation (in column order)
+   */
+  public Set<String> relation() {
+    return new LinkedHashSet<>(Arrays.asList(this.columns));
+  }
+
+  /**
+   * Reads one record, which spans several lines if a quoted field contains
+   * line breaks
+   *
+   * @param in the CSV text
+   * @return the fields of the record, or null at the end of the input
+   * @throws IOException if reading fails or a quote is never closed
+   */
+  static List<String> readRecord(BufferedReader in) throws IOException {
+    String line = in.readLine();
+    if (line == null) {
+      return null;
+    }
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    int i = 0;
+    while (true) {
+      if (i == line.length()) {
+        if (!quoted) {
+          break;
+        }
+        // a line break inside a quoted field
+        line = in.readLine();
+        if (line == null) {
+          throw new IOException("Unterminated quoted field.");
+        }
+        field.append('\n');
+        i = 0;
+        continue;
+      }
+      char ch = line.charAt(i++);
+      if (quoted) {
+        if (ch != '"') {
+          field.append(ch);
+        } else if (i < line.length() && line.charAt(i) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (ch == '"') {
+        quoted = true;
+      } else if (ch == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (ch != '\r' || i < line.length()) {
+        field.append(ch);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
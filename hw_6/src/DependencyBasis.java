@@ -0,0 +1,230 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Dependency bases under a mix of FDs and MVDs, with Beeri's refinement
+ * algorithm.
+ *
+ * The dependency basis of X is the partition of R\X into blocks such that
+ * X -->> Y holds exactly when Y\X is a union of blocks. It starts as the single
+ * block R\X, and every MVD V -->> W splits each block Y that V does not touch
+ * into Y&W and Y\W, until nothing changes. An FD V --> W acts as the MVDs
+ * V -->> A for every A in W, so it splits every attribute of W out of such a
+ * block on its own. The FD closure of X is then X plus every singleton block
+ * {A} such that some FD has A on its right-hand side but not on its left
+ * (Beeri 1980), so superkeys are found from the same basis.
+ *
+ * Attribute sets are longs with one bit per attribute, so at most 64
+ * attributes are supported, and a basis holds at most that many blocks: one
+ * basis costs O(n * m * n) word operations for n attributes and m
+ * dependencies, instead of enumerating implied MVDs. Bases are cached per
+ * left-hand side; instances are not thread safe.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class DependencyBasis {
+
+  private final AttributeIndex index;
+  private final long[] fdLeft;
+  private final long[] fdRight;
+  private final long[] mvdLeft;
+  private final long[] mvdRight;
+  /** attributes that some FD determines non-trivially */
+  private final long determinable;
+  private final Map<Long, long[]> cache = new HashMap<>();
+
+  private DependencyBasis(AttributeIndex index, FDSet fdset, Collection<MVD> mvds) {
+    if (index.size() > 64) {
+      throw new IllegalArgumentException("At most 64 attributes are supported, not " + index.size() + ".");
+    }
+    this.index = index;
+    this.fdLeft = new long[fdset.size()];
+    this.fdRight = new long[fdset.size()];
+    long determinable = 0L;
+    int i = 0;
+    for (FD fd : fdset) {
+      this.fdLeft[i] = index.mask(fd.left());
+      this.fdRight[i] = index.mask(fd.right());
+      determinable |= this.fdRight[i] & ~this.fdLeft[i];
+      i++;
+    }
+    this.determinable = determinable;
+    this.mvdLeft = new long[mvds.size()];
+    this.mvdRight = new long[mvds.size()];
+    i = 0;
+    for (MVD mvd : mvds) {
+      this.mvdLeft[i] = index.mask(mvd.left());
+      this.mvdRight[i] = index.mask(mvd.right());
+      i++;
+    }
+  }
+
+  /**
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set over the relation
+   * @param mvds  multivalued dependencies over the relation
+   * @return the dependency bases of rel's attribute sets
+   * @throws IllegalArgumentException if a dependency mentions an attribute
+   *                                  outside rel
+   */
+  public static DependencyBasis of(Set<String> rel, FDSet fdset, Collection<MVD> mvds) {
+    return new DependencyBasis(new AttributeIndex(rel), fdset, mvds);
+  }
+
+  /**
+   * @return the attributes and their bit positions
+   */
+  public AttributeIndex index() {
+    return this.index;
+  }
+
+  /**
+   * @param x an attribute set as a bitmask of the index
+   * @return the blocks of the dependency basis of x, ordered by lowest bit;
+   *         callers must not modify the array
+   */
+  public long[] basis(long x) {
+    long[] blocks = this.cache.get(x);
+    if (blocks == null) {
+      blocks = this.refine(x, new long[] { this.index.fullMask() });
+      this.cache.put(x, blocks);
+    }
+    return blocks;
+  }
+
+  /**
+   * The basis of x without the cache, starting from the basis of a subset of
+   * x: by augmentation each of its blocks minus x is still a union of blocks
+   * of the basis of x, so only the remaining splits are done
+   *
+   * @param x      an attribute set as a bitmask of the index
+   * @param subset the blocks of the basis of a subset of x
+   * @return the blocks of the dependency basis of x, ordered by lowest bit
+   */
+  long[] basis(long x, long[] subset) {
+    return this.refine(x, subset);
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the blocks of its dependency basis
+   */
+  public Set<Set<String>> basis(Set<String> attrs) {
+    Set<Set<String>> blocks = new TreeSet<>((a, b) -> a.toString().compareTo(b.toString()));
+    for (long block : this.basis(this.index.mask(attrs))) {
+      blocks.add(this.index.decode(block));
+    }
+    return blocks;
+  }
+
+  /**
+   * @param x an attribute set as a bitmask of the index
+   * @return the attributes that x functionally determines, as a bitmask
+   */
+  public long closure(long x) {
+    return this.closure(x, this.basis(x));
+  }
+
+  /**
+   * @param x      an attribute set as a bitmask of the index
+   * @param blocks the blocks of its dependency basis
+   * @return the attributes that x functionally determines, as a bitmask
+   */
+  long closure(long x, long[] blocks) {
+    long closure = x;
+    for (long block : blocks) {
+      if ((block & (block - 1)) == 0 && (block & this.determinable) != 0) {
+        closure |= block;
+      }
+    }
+    return closure;
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the attributes that it functionally determines
+   */
+  public Set<String> closure(Set<String> attrs) {
+    return this.index.decode(this.closure(this.index.mask(attrs)));
+  }
+
+  /**
+   * @param mvd a multivalued dependency over the relation
+   * @return true if the dependencies imply it
+   */
+  public boolean implies(MVD mvd) {
+    long x = this.index.mask(mvd.left());
+    long y = this.index.mask(mvd.right()) & ~x;
+    for (long block : this.basis(x)) {
+      if ((block & y) != 0 && (block & ~y) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Splits the given blocks minus x until no dependency splits any of them
+   */
+  private long[] refine(long x, long[] start) {
+    long[] blocks = new long[Long.bitCount(this.index.fullMask() & ~x)];
+    int count = 0;
+    for (long block : start) {
+      if ((block & ~x) != 0) {
+        blocks[count++] = block & ~x;
+      }
+    }
+    boolean changed;
+    do {
+      changed = false;
+      for (int d = 0; d < this.mvdLeft.length; d++) {
+        long v = this.mvdLeft[d];
+        long w = this.mvdRight[d];
+        for (int b = 0; b < count; b++) {
+          long y = blocks[b];
+          if ((y & v) == 0 && (y & w) != 0 && (y & ~w) != 0) {
+            blocks[b] = y & w;
+            blocks[count++] = y & ~w;
+            changed = true;
+          }
+        }
+      }
+      for (int d = 0; d < this.fdLeft.length; d++) {
+        long v = this.fdLeft[d];
+        long w = this.fdRight[d];
+        for (int b = 0; b < count; b++) {
+          long y = blocks[b];
+          long split = y & w;
+          if ((y & v) == 0 && split != 0 && (y & (y - 1)) != 0) {
+            // every attribute of w in y becomes a block of its own
+            long rest = y & ~split;
+            long first = Long.lowestOneBit(split);
+            blocks[b] = first;
+            for (long m = split & ~first; m != 0; m &= m - 1) {
+              blocks[count++] = Long.lowestOneBit(m);
+            }
+            if (rest != 0) {
+              blocks[count++] = rest;
+            }
+            changed = true;
+          }
+        }
+      }
+    } while (changed);
+    // blocks are disjoint, so order them by their lowest attribute
+    for (int i = 1; i < count; i++) {
+      long block = blocks[i];
+      int j = i - 1;
+      for (; j >= 0 && Long.compareUnsigned(Long.lowestOneBit(blocks[j]), Long.lowestOneBit(block)) > 0; j--) {
+        blocks[j + 1] = blocks[j];
+      }
+      blocks[j + 1] = block;
+    }
+    return Arrays.copyOf(blocks, count);
+  }
+}
@@ -0,0 +1,140 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits for one run of an exponential operation (FDUtil.fdSetClosure,
+ * FDUtil.powerSet, Normalizer.findSuperkeys and everything built on them):
+ * a deadline, a cap on the number of generated FDs or subsets, a heap budget,
+ * and cooperative cancellation. The operations call checkpoint() and charge()
+ * as they go, and throw a BudgetExceededException as soon as a limit is hit.
+ *
+ * A context is shared by every operation of one run, so the caps apply to the
+ * run as a whole. Interrupting the running thread cancels it as well.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class ExecutionContext {
+
+  /** How many checkpoints pass between two looks at the heap */
+  private static final int MEMORY_CHECK_INTERVAL = 256;
+
+  private long deadline = Long.MAX_VALUE;
+  private long timeoutMillis = 0;
+  private long maxGenerated = Long.MAX_VALUE;
+  private long memoryBudget = Long.MAX_VALUE;
+  private final AtomicLong generated = new AtomicLong();
+  private volatile boolean cancelled = false;
+  private final AtomicInteger checkpoints = new AtomicInteger();
+
+  /**
+   * Creates a context without any limits
+   */
+  public ExecutionContext() {
+  }
+
+  /**
+   * @return a fresh context without any limits
+   */
+  public static ExecutionContext unbounded() {
+    return new ExecutionContext();
+  }
+
+  /**
+   * Sets a deadline relative to now
+   *
+   * @param millis how long the run may take
+   * @return this context
+   */
+  public ExecutionContext timeout(long millis) {
+    this.timeoutMillis = millis;
+    this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    return this;
+  }
+
+  /**
+   * @param n the largest number of FDs or subsets the run may generate
+   * @return this context
+   */
+  public ExecutionContext maxGenerated(long n) {
+    this.maxGenerated = n;
+    return this;
+  }
+
+  /**
+   * @param bytes the largest amount of heap in use the run may observe
+   * @return this context
+   */
+  public ExecutionContext memoryBudget(long bytes) {
+    this.memoryBudget = bytes;
+    return this;
+  }
+
+  /**
+   * Asks the run to stop at its next checkpoint. Safe to call from any thread.
+   */
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  /**
+   * @return the number of FDs or subsets generated so far
+   */
+  public long generated() {
+    return this.generated.get();
+  }
+
+  /**
+   * Throws if the run has been cancelled or has run out of time or memory
+   *
+   * @throws BudgetExceededException if a limit has been hit
+   */
+  public void checkpoint() {
+    if (this.cancelled || Thread.currentThread().isInterrupted()) {
+      throw new BudgetExceededException(BudgetExceededException.Limit.CANCELLED, "cancelled after generating "
+          + this.generated() + " FDs or subsets");
+    }
+    if (this.deadline != Long.MAX_VALUE && System.nanoTime() - this.deadline > 0) {
+      throw new BudgetExceededException(BudgetExceededException.Limit.DEADLINE, "deadline of " + this.timeoutMillis
+          + " ms exceeded after generating " + this.generated() + " FDs or subsets");
+    }
+    if (this.memoryBudget != Long.MAX_VALUE && this.checkpoints.incrementAndGet() % MEMORY_CHECK_INTERVAL == 0) {
+      Runtime rt = Runtime.getRuntime();
+      long used = rt.totalMemory() - rt.freeMemory();
+      if (used > this.memoryBudget) {
+        throw new BudgetExceededException(BudgetExceededException.Limit.MEMORY, "heap in use (" + used
+            + " bytes) exceeds the budget of " + this.memoryBudget + " bytes");
+      }
+    }
+  }
+
+  /**
+   * Records newly generated FDs or subsets, then does a checkpoint
+   *
+   * @param n how many were generated
+   * @throws BudgetExceededException if a limit has been hit
+   */
+  public void charge(long n) {
+    long total = this.generated.addAndGet(n);
+    if (total > this.maxGenerated) {
+      throw new BudgetExceededException(BudgetExceededException.Limit.GENERATED, "generated " + total
+          + " FDs or subsets, more than the limit of " + this.maxGenerated);
+    }
+    this.checkpoint();
+  }
+
+  /**
+   * Fails right away if the relation is too large to enumerate its subsets at
+   * all, rather than running out of memory halfway through
+   *
+   * @param attributes the number of attributes whose power set is needed
+   * @throws BudgetExceededException if 2^attributes exceeds the cap
+   */
+  public void checkPowerSet(int attributes) {
+    if (this.maxGenerated != Long.MAX_VALUE && (attributes >= 63 || (1L << attributes) > this.maxGenerated)) {
+      throw new BudgetExceededException(BudgetExceededException.Limit.GENERATED, "the power set of "
+          + attributes + " attributes exceeds the limit of " + this.maxGenerated + " subsets");
+    }
+  }
+}
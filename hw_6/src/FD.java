@@ -53,6 +53,21 @@ public class FD implements Comparable<FD> {
     this.right = new TreeSet<>(right);
   }
 
+  /**
+   * Creation of a functional dependency that takes ownership of the given sets
+   * instead of copying them. Used by the loaders to avoid one copy per FD.
+   *
+   * @param left  A sorted attribute set on the left (not to be modified later)
+   * @param right A sorted attribute set on the right (not to be modified later)
+   * @return a functional dependency backed by the given sets
+   */
+  static FD adopt(TreeSet<String> left, TreeSet<String> right) {
+    FD fd = new FD();
+    fd.left = left;
+    fd.right = right;
+    return fd;
+  }
+
   /**
    * @return the attribute set on the left hand side of the FD
    */
@@ -67,6 +82,20 @@ public class FD implements Comparable<FD> {
     return new TreeSet<>(this.right);
   }
 
+  /**
+   * @return the attribute set on the left, without a copy (not to be modified)
+   */
+  Set<String> left() {
+    return this.left;
+  }
+
+  /**
+   * @return the attribute set on the right, without a copy (not to be modified)
+   */
+  Set<String> right() {
+    return this.right;
+  }
+
   /**
    * Adds a set of attributes to the left-hand side
    * 
@@ -128,15 +157,7 @@ public class FD implements Comparable<FD> {
   @Override
   public String toString() {
     // Leaves commas if there's an attribute that's multi-character
-    Set<String> union = new TreeSet<>(this.left);
-    union.addAll(this.right);
-    for (String attr : union) {
-      if (attr.length() > 1) {
-        return (this.left.toString().replaceAll("( )", "") + " --> "
-            + this.right.toString().replaceAll("( )", ""));
-      }
-    }
-    return (this.left + " --> " + this.right).replaceAll("(, |\\[|\\])", "");
+    return FDWriter.toString(this);
   }
 
   /**
@@ -0,0 +1,256 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * A compact binary format for FD sets: an attribute dictionary followed by
+ * fixed-size records holding each FD's left and right attribute bitsets.
+ *
+ * Layout (little-endian):
+ * magic "FDSB", int version, int attribute count, int words per bitset,
+ * long FD count, then per attribute an int byte length and its UTF-8 bytes,
+ * zero padding up to a multiple of 8 bytes, then per FD the left bitset
+ * followed by the right bitset (words longs each).
+ *
+ * Since records have a fixed size and are 8-byte aligned, a mapped file can be
+ * used in place without decoding it first (see map).
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class FDBinary {
+
+  private static final int MAGIC = 0x42534446; // "FDSB" read little-endian
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private FDBinary() {
+  }
+
+  /**
+   * Writes an FD set to a file, replacing its contents
+   *
+   * @param fdset the FDs to write
+   * @param file  the file to write
+   * @throws IOException if writing fails
+   */
+  public static void write(FDSet fdset, Path file) throws IOException {
+    AttributeIndex index = AttributeIndex.of(fdset);
+    int words = Math.max(1, index.words());
+    try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      buf.putInt(MAGIC).putInt(VERSION).putInt(index.size()).putInt(words).putLong(fdset.size());
+      long position = 24;
+      for (int i = 0; i < index.size(); i++) {
+        byte[] name = index.name(i).getBytes(StandardCharsets.UTF_8);
+        ensure(out, buf, 4 + name.length);
+        buf.putInt(name.length);
+        putLarge(out, buf, name);
+        position += 4 + name.length;
+      }
+      ensure(out, buf, 8);
+      while (position % 8 != 0) {
+        buf.put((byte) 0);
+        position++;
+      }
+
+      long[] left = new long[words];
+      long[] right = new long[words];
+      for (FD fd : fdset) {
+        encode(index, fd.getLeft(), left);
+        encode(index, fd.getRight(), right);
+        ensure(out, buf, 16 * words);
+        for (long w : left) {
+          buf.putLong(w);
+        }
+        for (long w : right) {
+          buf.putLong(w);
+        }
+      }
+      buf.flip();
+      while (buf.hasRemaining()) {
+        out.write(buf);
+      }
+    }
+  }
+
+  /**
+   * Reads a whole file into an FD set
+   *
+   * @param file a file written by write
+   * @return the FDs in the file
+   * @throws IOException if the file cannot be read or is not in this format
+   */
+  public static FDSet load(Path file) throws IOException {
+    Mapped mapped = map(file);
+    FDSet fdset = new FDSet();
+    for (int i = 0; i < mapped.size(); i++) {
+      fdset.add(mapped.get(i));
+    }
+    return fdset;
+  }
+
+  /**
+   * Maps a file into memory without decoding its FDs. Only the dictionary is
+   * read up front; records are decoded on access.
+   *
+   * @param file a file written by write
+   * @return a read-only view of the file
+   * @throws IOException if the file cannot be read or is not in this format
+   */
+  public static Mapped map(Path file) throws IOException {
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (in.size() > Integer.MAX_VALUE) {
+        throw new IOException(file + " is too large to map (" + in.size() + " bytes).");
+      }
+      MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+      buf.order(ByteOrder.LITTLE_ENDIAN);
+      return new Mapped(file, buf);
+    }
+  }
+
+  /**
+   * A read-only view of a mapped FD file
+   */
+  public static final class Mapped implements Iterable<FD> {
+    private final String[] names;
+    private final int words;
+    private final int size;
+    private final LongBuffer records;
+
+    private Mapped(Path file, ByteBuffer buf) throws IOException {
+      try {
+        if (buf.getInt() != MAGIC) {
+          throw new IOException(file + " is not a binary FD file.");
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+          throw new IOException(file + " has unsupported version " + version + ".");
+        }
+        this.names = new String[buf.getInt()];
+        this.words = buf.getInt();
+        long count = buf.getLong();
+        for (int i = 0; i < this.names.length; i++) {
+          byte[] name = new byte[buf.getInt()];
+          buf.get(name);
+          this.names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        buf.position((buf.position() + 7) & ~7);
+        if (count * 16 * this.words != buf.remaining()) {
+          throw new IOException(file + " is truncated or corrupt.");
+        }
+        this.size = (int) count;
+        this.records = buf.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      } catch (RuntimeException e) {
+        throw new IOException(file + " is truncated or corrupt.", e);
+      }
+    }
+
+    /**
+     * @return the number of FDs in the file
+     */
+    public int size() {
+      return this.size;
+    }
+
+    /**
+     * @return the attribute dictionary of the file
+     */
+    public AttributeIndex attributes() {
+      return new AttributeIndex(Arrays.asList(this.names));
+    }
+
+    /**
+     * @param i       an FD number
+     * @param word    a word number, less than the number of words per bitset
+     * @param right   whether to read the right-hand side instead of the left
+     * @return one word of the FD's attribute bitset
+     */
+    public long word(int i, int word, boolean right) {
+      return this.records.get((2 * i + (right ? 1 : 0)) * this.words + word);
+    }
+
+    /**
+     * @param i an FD number
+     * @return the decoded FD
+     */
+    public FD get(int i) {
+      return FD.adopt(this.decode(2 * i * this.words), this.decode((2 * i + 1) * this.words));
+    }
+
+    private TreeSet<String> decode(int offset) {
+      TreeSet<String> attrs = new TreeSet<>();
+      for (int w = 0; w < this.words; w++) {
+        for (long bits = this.records.get(offset + w); bits != 0; bits &= bits - 1) {
+          attrs.add(this.names[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+        }
+      }
+      return attrs;
+    }
+
+    @Override
+    public Iterator<FD> iterator() {
+      return new Iterator<FD>() {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return this.next < Mapped.this.size;
+        }
+
+        @Override
+        public FD next() {
+          if (!this.hasNext()) {
+            throw new NoSuchElementException();
+          }
+          return Mapped.this.get(this.next++);
+        }
+      };
+    }
+  }
+
+  private static void encode(AttributeIndex index, Iterable<String> attrs, long[] words) {
+    Arrays.fill(words, 0L);
+    for (String attr : attrs) {
+      int i = index.indexOf(attr);
+      words[i >>> 6] |= 1L << i;
+    }
+  }
+
+  /**
+   * Flushes the buffer to the channel if fewer than n bytes are free
+   */
+  private static void ensure(FileChannel out, ByteBuffer buf, int n) throws IOException {
+    if (buf.remaining() < n) {
+      buf.flip();
+      while (buf.hasRemaining()) {
+        out.write(buf);
+      }
+      buf.clear();
+    }
+  }
+
+  /**
+   * Puts bytes that may not fit into the buffer at once
+   */
+  private static void putLarge(FileChannel out, ByteBuffer buf, byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      ensure(out, buf, 1);
+      int n = Math.min(buf.remaining(), bytes.length - offset);
+      buf.put(bytes, offset, n);
+      offset += n;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Discovers the minimal non-trivial FDs that hold on a table, following TANE
+ * (Huhtala et al., 1999). Attribute sets are visited level by level in the
+ * lattice of column subsets, each with the stripped partition of the rows by
+ * those columns. X\{A} --> A holds exactly when the partitions of X\{A} and
+ * X have the same error, and the candidate sets C+(X) prune every right-hand
+ * side that could only give non-minimal FDs. The partitions of a new level are
+ * products of partitions of the previous one, computed in parallel.
+ *
+ * Every discovered FD has a single attribute on its right-hand side, and the
+ * relation is the table's header, so the result can be passed straight to
+ * Normalizer.BCNFDecompose(table.relation(), fds).
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class FDDiscovery {
+
+  private final CsvTable table;
+  private final int maxLhs;
+  private final ExecutionContext ctx;
+  private final long all;
+  private final ThreadLocal<int[]> scratch;
+  private final StrippedPartition[] singles;
+
+  /**
+   * A set of columns in the current level of the lattice
+   */
+  private static final class Node {
+    final StrippedPartition partition;
+    long cplus;
+
+    Node(StrippedPartition partition) {
+      this.partition = partition;
+    }
+  }
+
+  private FDDiscovery(CsvTable table, int maxLhs, ExecutionContext ctx) {
+    if (table.columnCount() > 64) {
+      throw new IllegalArgumentException("At most 64 columns are supported, not " + table.columnCount() + ".");
+    }
+    this.table = table;
+    this.maxLhs = maxLhs;
+    this.ctx = ctx;
+    this.singles = new StrippedPartition[table.columnCount()];
+    this.all = (table.columnCount() == 64) ? -1L : (1L << table.columnCount()) - 1;
+    this.scratch = ThreadLocal.withInitial(() -> {
+      int[] t = new int[table.rows()];
+      Arrays.fill(t, -1);
+      return t;
+    });
+  }
+
+  /**
+   * Usage: FDDiscovery file.csv [maxLhs]
+   *
+   * @param args command line arguments
+   * @throws IOException if the file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: FDDiscovery file.csv [maxLhs]");
+      System.exit(2);
+    }
+    CsvTable table = CsvTable.read(Paths.get(args[0]));
+    int maxLhs = (args.length > 1) ? Integer.parseInt(args[1]) : table.columnCount();
+    System.out.println(discover(table, maxLhs, ExecutionContext.unbounded()));
+  }
+
+  /**
+   * @param table an encoded table
+   * @return every minimal non-trivial FD that holds on the table
+   */
+  public static FDSet discover(CsvTable table) {
+    return discover(table, table.columnCount(), ExecutionContext.unbounded());
+  }
+
+  /**
+   * @param table  an encoded table
+   * @param maxLhs the largest left-hand side to look for
+   * @param ctx    the limits of the run
+   * @return every minimal non-trivial FD with at most maxLhs attributes on the
+   *         left that holds on the table
+   * @throws BudgetExceededException if a limit is hit; the FDs found so far
+   *                                 are attached
+   */
+  public static FDSet discover(CsvTable table, int maxLhs, ExecutionContext ctx) {
+    return new FDDiscovery(table, maxLhs, ctx).run();
+  }
+
+  private FDSet run() {
+    FDSet fds = new FDSet();
+    try {
+      int n = this.table.columnCount();
+      // level 0 is the empty set, whose C+ is every attribute
+      Map<Long, Node> previous = new HashMap<>();
+      Node empty = new Node(StrippedPartition.all(this.table.rows()));
+      empty.cplus = this.all;
+      previous.put(0L, empty);
+
+      Map<Long, Node> level = new HashMap<>();
+      for (int c = 0; c < n; c++) {
+        this.singles[c] = StrippedPartition.of(this.table.codes(c), this.table.cardinality(c));
+        level.put(1L << c, new Node(this.singles[c]));
+      }
+
+      for (int l = 1; !level.isEmpty() && l <= this.maxLhs + 1; l++) {
+        this.computeDependencies(level, previous, fds);
+        Map<Long, Node> remaining = this.prune(level, previous, fds);
+        previous = level;
+        level = (l <= this.maxLhs) ? this.generateNextLevel(remaining) : Collections.emptyMap();
+      }
+    } catch (BudgetExceededException e) {
+      throw e.stoppedIn("FDDiscovery", fds);
+    }
+    return fds;
+  }
+
+  /**
+   * Computes C+ for every set of the level, and emits X\{A} --> A for every
+   * A in both X and C+(X) whose partition errors match
+   */
+  private void computeDependencies(Map<Long, Node> level, Map<Long, Node> previous, FDSet fds) {
+    for (Map.Entry<Long, Node> entry : level.entrySet()) {
+      long x = entry.getKey();
+      long cplus = this.all;
+      for (long bits = x; bits != 0; bits &= bits - 1) {
+        Node sub = previous.get(x & ~Long.lowestOneBit(bits));
+        cplus &= (sub == null) ? 0L : sub.cplus;
+      }
+      entry.getValue().cplus = cplus;
+    }
+    for (Map.Entry<Long, Node> entry : level.entrySet()) {
+      this.ctx.checkpoint();
+      long x = entry.getKey();
+      Node node = entry.getValue();
+      for (long bits = x & node.cplus; bits != 0; bits &= bits - 1) {
+        long a = Long.lowestOneBit(bits);
+        Node lhs = previous.get(x & ~a);
+        if (lhs != null && lhs.partition.error() == node.partition.error()) {
+          this.emit(fds, x & ~a, a);
+          node.cplus &= ~a;
+          node.cplus &= x;
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops sets with an empty C+, and keys after emitting the FDs they are the
+   * left-hand side of (their supersets would never be visited). A key X
+   * determines every A; X --> A is minimal exactly when no X\{B} does.
+   */
+  private Map<Long, Node> prune(Map<Long, Node> level, Map<Long, Node> previous, FDSet fds) {
+    Map<Long, Node> remaining = new HashMap<>();
+    for (Map.Entry<Long, Node> entry : level.entrySet()) {
+      long x = entry.getKey();
+      Node node = entry.getValue();
+      if (node.cplus == 0) {
+        continue;
+      }
+      if (node.partition.isUnique()) {
+        for (long bits = (Long.bitCount(x) <= this.maxLhs) ? node.cplus & ~x : 0L; bits != 0; bits &= bits - 1) {
+          long a = Long.lowestOneBit(bits);
+          boolean minimal = true;
+          for (long bs = x; bs != 0 && minimal; bs &= bs - 1) {
+            minimal = !this.holds(x & ~Long.lowestOneBit(bs), a, level, previous);
+          }
+          if (minimal) {
+            this.emit(fds, x, a);
+          }
+        }
+        continue;
+      }
+      remaining.put(x, node);
+    }
+    return remaining;
+  }
+
+  /**
+   * Joins pairs of sets that differ only in their highest attribute, keeping
+   * a union only if all of its subsets one smaller survived pruning
+   */
+  private Map<Long, Node> generateNextLevel(Map<Long, Node> level) {
+    Map<Long, List<Long>> blocks = new HashMap<>();
+    for (long x : level.keySet()) {
+      blocks.computeIfAbsent(x & ~Long.highestOneBit(x), k -> new ArrayList<>()).add(x);
+    }
+    List<long[]> joins = new ArrayList<>();
+    for (List<Long> block : blocks.values()) {
+      for (int i = 0; i < block.size(); i++) {
+        for (int j = i + 1; j < block.size(); j++) {
+          long y = block.get(i);
+          long z = block.get(j);
+          long x = y | z;
+          boolean allSubsets = true;
+          for (long bits = x; bits != 0 && allSubsets; bits &= bits - 1) {
+            allSubsets = level.containsKey(x & ~Long.lowestOneBit(bits));
+          }
+          if (allSubsets) {
+            joins.add(new long[] { x, y, z });
+          }
+        }
+      }
+    }
+    this.ctx.charge(joins.size());
+
+    Node[] products = new Node[joins.size()];
+    IntStream.range(0, joins.size()).parallel().forEach(i -> {
+      this.ctx.checkpoint();
+      long[] join = joins.get(i);
+      StrippedPartition py = level.get(join[1]).partition;
+      StrippedPartition pz = level.get(join[2]).partition;
+      products[i] = new Node(py.product(pz, this.scratch.get()));
+    });
+    Map<Long, Node> next = new HashMap<>();
+    for (int i = 0; i < products.length; i++) {
+      next.put(joins.get(i)[0], products[i]);
+    }
+    return next;
+  }
+
+  /**
+   * Tests lhs --> a, where lhs is in the previous level. The partition of
+   * lhs plus a is taken from the current level, or computed if it was never
+   * generated there.
+   */
+  private boolean holds(long lhs, long a, Map<Long, Node> level, Map<Long, Node> previous) {
+    StrippedPartition left = previous.get(lhs).partition;
+    Node both = level.get(lhs | a);
+    long error = (both != null) ? both.partition.error()
+        : left.product(this.singles[Long.numberOfTrailingZeros(a)], this.scratch.get()).error();
+    return error == left.error();
+  }
+
+  private void emit(FDSet fds, long lhs, long rhs) {
+    Set<String> left = new TreeSet<>();
+    for (long bits = lhs; bits != 0; bits &= bits - 1) {
+      left.add(this.table.column(Long.numberOfTrailingZeros(bits)));
+    }
+    fds.add(new FD(left, Collections.singleton(this.table.column(Long.numberOfTrailingZeros(rhs)))));
+  }
+}
@@ -0,0 +1,243 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Reads FD sets from their textual form, one FD per line. This is the inverse
+ * of FD.toString: both "AB --> CD" (single-character attributes) and
+ * "[A1,B] --> [C]" (multi-character attributes) are accepted, and so are the
+ * shorter "->" arrow and whitespace-separated names such as "emp dept -> mgr".
+ *
+ * Blank lines and lines starting with '#' are skipped. A line starting with
+ * "R:" lists the relation's attributes, comma-separated, as written by
+ * FDGenerator.Workload.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class FDFormat {
+
+  private static final int CHARACTERS = 0;
+  private static final int WHITESPACE = 1;
+  private static final int COMMAS = 2;
+
+  /** Attribute names seen so far, so that equal names share one String */
+  private final Map<String, String> names = new HashMap<>();
+  private int lineNumber = 0;
+
+  private FDFormat() {
+  }
+
+  /**
+   * Parses a single FD
+   *
+   * @param line an FD such as "AB --> C"
+   * @return the FD
+   * @throws IllegalArgumentException if the line is not an FD
+   */
+  public static FD parseFD(String line) {
+    return new FDFormat().fd(line);
+  }
+
+  /**
+   * Reads every FD from a stream, ignoring any relation line
+   *
+   * @param in the text to read (not closed)
+   * @return the FDs that were read
+   * @throws IOException              if reading fails
+   * @throws IllegalArgumentException if a line is malformed
+   */
+  public static FDSet read(Reader in) throws IOException {
+    return readWorkload(in).getFDSet();
+  }
+
+  /**
+   * Reads every FD from a file, ignoring any relation line
+   *
+   * @param file the file to read
+   * @return the FDs that were read
+   * @throws IOException              if reading fails
+   * @throws IllegalArgumentException if a line is malformed
+   */
+  public static FDSet read(Path file) throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return read(in);
+    }
+  }
+
+  /**
+   * Reads a relation and its FDs. If there is no "R:" line, the relation
+   * consists of the attributes mentioned by the FDs.
+   *
+   * @param in the text to read (not closed)
+   * @return the relation with its FD set
+   * @throws IOException              if reading fails
+   * @throws IllegalArgumentException if a line is malformed
+   */
+  public static FDGenerator.Workload readWorkload(Reader in) throws IOException {
+    BufferedReader reader = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in);
+    FDFormat format = new FDFormat();
+    Set<String> relation = null;
+    FDSet fdset = new FDSet();
+    String description = "";
+    String line;
+    while ((line = reader.readLine()) != null) {
+      format.lineNumber++;
+      String trimmed = line.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (trimmed.startsWith("#")) {
+        if (format.lineNumber == 1) {
+          description = trimmed.substring(1).trim();
+        }
+      } else if (trimmed.startsWith("R:")) {
+        relation = new LinkedHashSet<>(format.attributes(trimmed.substring(2), COMMAS));
+      } else {
+        fdset.add(format.fd(trimmed));
+      }
+    }
+    if (relation == null) {
+      relation = new LinkedHashSet<>();
+      for (FD fd : fdset) {
+        relation.addAll(fd.getLeft());
+        relation.addAll(fd.getRight());
+      }
+    }
+    return new FDGenerator.Workload(relation, fdset, description);
+  }
+
+  /**
+   * Reads a relation and its FDs from a file
+   *
+   * @param file the file to read
+   * @return the relation with its FD set
+   * @throws IOException              if reading fails
+   * @throws IllegalArgumentException if a line is malformed
+   */
+  public static FDGenerator.Workload readWorkload(Path file) throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return readWorkload(in);
+    }
+  }
+
+  /**
+   * Reads the FDs of a file one line at a time, handing each FD to the
+   * consumer instead of collecting them.
+   *
+   * @param file the file to read
+   * @param sink receives every FD in file order
+   * @throws IOException              if reading fails
+   * @throws IllegalArgumentException if a line is malformed
+   */
+  public static void forEach(Path file, Consumer<FD> sink) throws IOException {
+    FDFormat format = new FDFormat();
+    try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        format.lineNumber++;
+        String trimmed = line.trim();
+        if (!trimmed.isEmpty() && !trimmed.startsWith("#") && !trimmed.startsWith("R:")) {
+          sink.accept(format.fd(trimmed));
+        }
+      }
+    }
+  }
+
+  /**
+   * Parses one (trimmed, non-empty) FD line
+   */
+  private FD fd(String line) {
+    int arrow = line.indexOf("-->");
+    int arrowLength = 3;
+    if (arrow < 0) {
+      arrow = line.indexOf("->");
+      arrowLength = 2;
+    }
+    if (arrow < 0) {
+      throw new IllegalArgumentException(this.where() + "expected an FD such as \"AB --> C\" but got \"" + line + "\"");
+    }
+    String leftSide = line.substring(0, arrow).trim();
+    String rightSide = line.substring(arrow + arrowLength).trim();
+    int mode = Math.max(mode(leftSide), mode(rightSide));
+    TreeSet<String> left = this.attributes(leftSide, mode);
+    TreeSet<String> right = this.attributes(rightSide, mode);
+    if (right.isEmpty()) {
+      throw new IllegalArgumentException(this.where() + "empty right-hand side in \"" + line + "\"");
+    }
+    return FD.adopt(left, right);
+  }
+
+  /**
+   * How the names on one side of an FD are separated: every character is its
+   * own attribute unless the side is bracketed or has commas (as written by
+   * FD.toString for multi-character attributes) or has whitespace between
+   * names. Both sides of an FD are split the same way.
+   */
+  private static int mode(String side) {
+    if (side.startsWith("[") || side.indexOf(',') >= 0) {
+      return COMMAS;
+    }
+    for (int i = 0; i < side.length(); i++) {
+      if (Character.isWhitespace(side.charAt(i))) {
+        return WHITESPACE;
+      }
+    }
+    return CHARACTERS;
+  }
+
+  /**
+   * Splits one side of an FD into attribute names
+   */
+  private TreeSet<String> attributes(String side, int mode) {
+    String s = side.trim();
+    if (s.startsWith("[") && s.endsWith("]")) {
+      s = s.substring(1, s.length() - 1).trim();
+    }
+    TreeSet<String> attrs = new TreeSet<>();
+    if (s.isEmpty()) {
+      return attrs;
+    }
+    if (mode == COMMAS) {
+      int start = 0;
+      while (start <= s.length()) {
+        int end = s.indexOf(',', start);
+        if (end < 0) {
+          end = s.length();
+        }
+        this.addName(attrs, s.substring(start, end).trim());
+        start = end + 1;
+      }
+    } else if (mode == WHITESPACE) {
+      for (String name : s.split("\\s+")) {
+        this.addName(attrs, name);
+      }
+    } else {
+      for (int i = 0; i < s.length(); i++) {
+        this.addName(attrs, s.substring(i, i + 1));
+      }
+    }
+    return attrs;
+  }
+
+  private void addName(Set<String> attrs, String name) {
+    if (name.isEmpty()) {
+      throw new IllegalArgumentException(this.where() + "empty attribute name");
+    }
+    String shared = this.names.putIfAbsent(name, name);
+    attrs.add((shared == null) ? name : shared);
+  }
+
+  private String where() {
+    return (this.lineNumber > 0) ? "Line " + this.lineNumber + ": " : "";
+  }
+}
@@ -0,0 +1,396 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates synthetic (relation, FD set) workloads for benchmarking and for
+ * reproducing bugs. Every workload is fully determined by its seed and
+ * settings, so the same generator configuration always yields the same FDs.
+ *
+ * The first few attributes of every generated relation form a key K. All
+ * generated FDs have K on their left-hand side (so they never violate BCNF)
+ * except for the planted violations, whose left-hand sides avoid K entirely.
+ * Since no FD ever derives an attribute of K, each planted FD is guaranteed
+ * to violate BCNF, and the number of violations is exactly the number planted.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public class FDGenerator {
+
+  /**
+   * The shape of the dependency graph among the non-key attributes
+   */
+  public enum Topology {
+    /** Left-hand sides and right-hand sides drawn uniformly at random */
+    RANDOM,
+    /** A1 --> A2 --> A3 --> ... */
+    CHAIN,
+    /** One center that determines every other attribute */
+    STAR,
+    /** Every attribute determines every other attribute */
+    CLIQUE
+  }
+
+  /**
+   * A distribution of attribute set sizes
+   */
+  public interface SizeDistribution {
+    /**
+     * @param rnd the source of randomness
+     * @return a sampled size (at least 1)
+     */
+    int sample(Random rnd);
+
+    /**
+     * @param size the only size to produce
+     * @return a distribution that always yields the given size
+     */
+    static SizeDistribution fixed(int size) {
+      return rnd -> size;
+    }
+
+    /**
+     * @param min the smallest size (inclusive)
+     * @param max the largest size (inclusive)
+     * @return a distribution uniform over [min, max]
+     */
+    static SizeDistribution uniform(int min, int max) {
+      if (min > max) {
+        throw new IllegalArgumentException("min must not exceed max");
+      }
+      return rnd -> min + rnd.nextInt(max - min + 1);
+    }
+
+    /**
+     * Small sizes are the most likely, and each additional attribute is kept
+     * with probability p. This is the usual shape of hand-written FDs.
+     *
+     * @param min the smallest size (inclusive)
+     * @param max the largest size (inclusive)
+     * @param p   the probability of growing by one more attribute
+     * @return a truncated geometric distribution over [min, max]
+     */
+    static SizeDistribution geometric(int min, int max, double p) {
+      if (min > max) {
+        throw new IllegalArgumentException("min must not exceed max");
+      }
+      return rnd -> {
+        int size = min;
+        while (size < max && rnd.nextDouble() < p) {
+          size++;
+        }
+        return size;
+      };
+    }
+  }
+
+  private final long seed;
+  private int numAttributes = 8;
+  private int numFds = 10;
+  private int keySize = 1;
+  private int violations = 0;
+  private Topology topology = Topology.RANDOM;
+  private SizeDistribution lhsSizes = SizeDistribution.uniform(1, 2);
+  private SizeDistribution rhsSizes = SizeDistribution.fixed(1);
+
+  /**
+   * Creates a generator with the default settings
+   *
+   * @param seed the seed that determines every generated workload
+   */
+  public FDGenerator(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @param n the number of attributes in the relation
+   * @return this generator
+   */
+  public FDGenerator attributes(int n) {
+    this.numAttributes = n;
+    return this;
+  }
+
+  /**
+   * @param n the number of FDs to generate, planted violations included
+   * @return this generator
+   */
+  public FDGenerator fds(int n) {
+    this.numFds = n;
+    return this;
+  }
+
+  /**
+   * @param n the number of attributes in the relation's key
+   * @return this generator
+   */
+  public FDGenerator keySize(int n) {
+    this.keySize = n;
+    return this;
+  }
+
+  /**
+   * @param n the exact number of FDs that should violate BCNF
+   * @return this generator
+   */
+  public FDGenerator violations(int n) {
+    this.violations = n;
+    return this;
+  }
+
+  /**
+   * @param topology the shape of the dependency graph
+   * @return this generator
+   */
+  public FDGenerator topology(Topology topology) {
+    this.topology = topology;
+    return this;
+  }
+
+  /**
+   * @param sizes the distribution of left-hand side sizes (key excluded)
+   * @return this generator
+   */
+  public FDGenerator lhsSize(SizeDistribution sizes) {
+    this.lhsSizes = sizes;
+    return this;
+  }
+
+  /**
+   * @param sizes the distribution of right-hand side sizes
+   * @return this generator
+   */
+  public FDGenerator rhsSize(SizeDistribution sizes) {
+    this.rhsSizes = sizes;
+    return this;
+  }
+
+  /**
+   * Generates a workload. Calling this repeatedly yields identical workloads.
+   *
+   * @return a relation together with its FD set
+   */
+  public Workload generate() {
+    if (this.keySize < 1 || this.numAttributes < this.keySize + 2) {
+      throw new IllegalArgumentException("Need a key of at least one attribute and at least two other attributes.");
+    }
+    if (this.violations < 0 || this.violations >= this.numFds) {
+      throw new IllegalArgumentException("Violations must be in [0, fds).");
+    }
+
+    Random rnd = new Random(this.seed);
+    List<String> names = attributeNames(this.numAttributes);
+    List<String> key = names.subList(0, this.keySize);
+    List<String> rest = names.subList(this.keySize, this.numAttributes);
+
+    // the root FD lets the key reach the rest of the relation through the
+    // topology, its right-hand side is patched up below to cover every attribute
+    Set<String> rootRight = new TreeSet<>(Collections.singleton(rest.get(0)));
+    FDSet fdset = new FDSet();
+    int attempts = 0;
+    int step = 0;
+    int baseFds = this.numFds - this.violations - 1;
+    while (fdset.size() < baseFds && attempts++ < 100 * this.numFds) {
+      Set<String> left = new TreeSet<>(key);
+      Set<String> right = new TreeSet<>();
+      topologyStep(rnd, rest, step++, left, right);
+      right.removeAll(left);
+      if (!right.isEmpty()) {
+        fdset.add(new FD(left, right));
+      }
+    }
+
+    // make sure the key determines every attribute so that all non-planted
+    // FDs have a superkey on the left
+    Set<String> reached = new HashSet<>(key);
+    reached.addAll(rootRight);
+    int startSize;
+    do {
+      startSize = reached.size();
+      for (FD fd : fdset) {
+        if (reached.containsAll(fd.getLeft())) {
+          reached.addAll(fd.getRight());
+        }
+      }
+    } while (startSize != reached.size());
+    for (String attr : rest) {
+      if (!reached.contains(attr)) {
+        rootRight.add(attr);
+      }
+    }
+    fdset.add(new FD(new TreeSet<>(key), rootRight));
+    if (fdset.size() <= baseFds) {
+      // the topology ran out of distinct FDs (or the root FD repeats one)
+      throw new IllegalArgumentException("Could not generate " + this.numFds + " distinct FDs with the "
+          + this.topology + " topology over " + this.numAttributes + " attributes.");
+    }
+
+    // plant the violations: their left-hand sides never contain a key attribute
+    int planted = 0;
+    attempts = 0;
+    while (planted < this.violations && attempts++ < 100 * this.numFds) {
+      Set<String> left = sample(rnd, rest, Math.min(this.lhsSizes.sample(rnd), rest.size() - 1), null);
+      Set<String> right = sample(rnd, rest, this.rhsSizes.sample(rnd), left);
+      FD fd = new FD(left, right);
+      if (!right.isEmpty() && !fdset.getSet().contains(fd)) {
+        fdset.add(fd);
+        planted++;
+      }
+    }
+    if (planted < this.violations) {
+      throw new IllegalArgumentException("Could not plant " + this.violations + " distinct violations.");
+    }
+    return new Workload(new LinkedHashSet<>(names), fdset, describe());
+  }
+
+  /**
+   * Fills in the non-key part of the next topology FD
+   */
+  private void topologyStep(Random rnd, List<String> rest, int step, Set<String> left, Set<String> right) {
+    int m = rest.size();
+    int lhs = Math.max(1, Math.min(this.lhsSizes.sample(rnd), m - 1));
+    int rhs = Math.max(1, this.rhsSizes.sample(rnd));
+    switch (this.topology) {
+      case CHAIN:
+        // a window of lhs attributes ending at position i determines the next rhs attributes
+        if (step < m - 1) {
+          for (int j = Math.max(0, step - lhs + 1); j <= step; j++) {
+            left.add(rest.get(j));
+          }
+          for (int j = step + 1; j < Math.min(m, step + 1 + rhs); j++) {
+            right.add(rest.get(j));
+          }
+          return;
+        }
+        break;
+      case STAR:
+        // the center (the first lhs attributes) determines the leaves, rhs at a time
+        int first = lhs + step * rhs;
+        if (first < m) {
+          left.addAll(rest.subList(0, lhs));
+          right.addAll(rest.subList(first, Math.min(m, first + rhs)));
+          return;
+        }
+        break;
+      case CLIQUE:
+        left.add(rest.get(step % m));
+        left.addAll(sample(rnd, rest, lhs - 1, left));
+        right.addAll(sample(rnd, rest, rhs, left));
+        return;
+      default:
+        break;
+    }
+    // random FDs, and the filler once a topology has been exhausted
+    left.addAll(sample(rnd, rest, lhs, null));
+    right.addAll(sample(rnd, rest, rhs, left));
+  }
+
+  /**
+   * Draws up to n distinct attributes from the pool, skipping excluded ones
+   */
+  private static Set<String> sample(Random rnd, List<String> pool, int n, Set<String> excluded) {
+    List<String> candidates = new ArrayList<>(pool);
+    if (excluded != null) {
+      candidates.removeAll(excluded);
+    }
+    Collections.shuffle(candidates, rnd);
+    return new TreeSet<>(candidates.subList(0, Math.max(0, Math.min(n, candidates.size()))));
+  }
+
+  /**
+   * Single letters while they last, so that FDs print as "AB --> C", and
+   * A1, A2, ... for wider relations
+   */
+  private static List<String> attributeNames(int n) {
+    List<String> names = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      names.add(n <= 26 ? String.valueOf((char) ('A' + i)) : "A" + (i + 1));
+    }
+    return names;
+  }
+
+  /**
+   * @return a one-line summary of the settings (distributions excluded)
+   */
+  private String describe() {
+    return "seed=" + this.seed + " attributes=" + this.numAttributes + " fds=" + this.numFds + " key="
+        + this.keySize + " topology=" + this.topology + " violations=" + this.violations;
+  }
+
+  /**
+   * A generated relation and its FD set
+   */
+  public static class Workload {
+    private final Set<String> relation;
+    private final FDSet fdset;
+    private final String description;
+
+    /**
+     * @param relation    the relation (as an attribute set)
+     * @param fdset       the FDs over the relation
+     * @param description the settings that produced this workload
+     */
+    public Workload(Set<String> relation, FDSet fdset, String description) {
+      this.relation = relation;
+      this.fdset = fdset;
+      this.description = description;
+    }
+
+    /**
+     * @return the relation (as an attribute set)
+     */
+    public Set<String> getRelation() {
+      return this.relation;
+    }
+
+    /**
+     * @return the FD set over the relation
+     */
+    public FDSet getFDSet() {
+      return this.fdset;
+    }
+
+    /**
+     * Writes this workload as a comment line with the generator settings, the
+     * relation on an "R:" line, and one FD per line.
+     *
+     * @param out where to write to (not closed)
+     * @throws IOException if writing fails
+     */
+    public void write(Writer out) throws IOException {
+      out.write("# FDGenerator " + this.description + "\n");
+      out.write("R: " + String.join(",", this.relation) + "\n");
+      new FDWriter(out).writeLines(this.fdset.iterator());
+      out.flush();
+    }
+
+    /**
+     * Writes this workload to a file, replacing its contents
+     *
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public void write(Path file) throws IOException {
+      try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        this.write(out);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "R = " + this.relation + "\n" + this.fdset;
+    }
+  }
+}
@@ -1,4 +1,6 @@
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -10,6 +12,8 @@ import java.util.TreeSet;
  */
 public class FDSet implements Iterable<FD> {
   private Set<FD> fdset;
+  /** The FDs grouped by left-hand side, built on first lookup */
+  private SetTrie<List<FD>> byLeft;
 
   /**
    * Constructs an empty functional dependency set
@@ -25,12 +29,59 @@ public class FDSet implements Iterable<FD> {
   }
 
   /**
-   * Copy constructor creates a deep copy (clone) of the given FD Set
+   * Copy constructor creates a deep copy (clone) of the given FD Set, with
+   * the same storage
    * 
    * @param original an FD Set to copy
    */
   public FDSet(FDSet original) {
-    this.fdset = new TreeSet<>(original.getSet());
+    if (original.fdset instanceof PackedFDSet) {
+      PackedFDSet packed = ((PackedFDSet) original.fdset).emptyCopy();
+      packed.addAllPacked((PackedFDSet) original.fdset);
+      this.fdset = packed;
+    } else {
+      this.fdset = new TreeSet<>(original.fdset);
+    }
+  }
+
+  private FDSet(Set<FD> storage) {
+    this.fdset = storage;
+  }
+
+  /**
+   * Creates an empty FD set that keeps its FDs off the Java heap, as packed
+   * attribute bitsets (see PackedFDSet), for derived FD sets with millions of
+   * FDs. It behaves like any other FD set, except that it iterates in
+   * insertion order and only takes FDs over the given attributes. Copies of
+   * it, and the sets that FDUtil derives from it (fdSetClosure, trivial,
+   * augment, transitive), are packed as well.
+   * 
+   * @param index the attributes of every FD that will be added
+   * @return an empty packed FD set that moves to a mapped temporary file
+   *         past 64 MB
+   */
+  public static FDSet packed(AttributeIndex index) {
+    return packed(index, PackedFDSet.DEFAULT_SPILL_BYTES);
+  }
+
+  /**
+   * @param index      the attributes of every FD that will be added
+   * @param spillBytes how many bytes of FDs to keep in memory before moving
+   *                   them to a mapped temporary file
+   * @return an empty packed FD set
+   */
+  public static FDSet packed(AttributeIndex index, long spillBytes) {
+    return new FDSet(new PackedFDSet(index, spillBytes));
+  }
+
+  /**
+   * @return an empty FD set with the same storage as this one
+   */
+  FDSet emptyCopy() {
+    if (this.fdset instanceof PackedFDSet) {
+      return new FDSet(((PackedFDSet) this.fdset).emptyCopy());
+    }
+    return new FDSet();
   }
 
   /**
@@ -39,7 +90,9 @@ public class FDSet implements Iterable<FD> {
    * @param fd Reference to a functional dependency
    */
   public void add(FD fd) {
-    this.fdset.add(fd);
+    if (this.fdset.add(fd) && this.byLeft != null) {
+      this.index(fd);
+    }
   }
 
   /**
@@ -48,7 +101,15 @@ public class FDSet implements Iterable<FD> {
    * @param fdset Reference to another FD set
    */
   public void addAll(FDSet other) {
-    this.fdset.addAll(other.fdset);
+    if (this.byLeft == null && this.fdset instanceof PackedFDSet && other.fdset instanceof PackedFDSet
+        && ((PackedFDSet) this.fdset).index() == ((PackedFDSet) other.fdset).index()) {
+      // copy the packed records as they are
+      ((PackedFDSet) this.fdset).addAllPacked((PackedFDSet) other.fdset);
+      return;
+    }
+    for (FD fd : other.fdset) {
+      this.add(fd);
+    }
   }
 
   /**
@@ -57,16 +118,77 @@ public class FDSet implements Iterable<FD> {
    * @param fd Reference to a functional dependency
    */
   public void remove(FD fd) {
-    this.fdset.remove(fd);
+    if (this.fdset.remove(fd)) {
+      this.unindex(fd);
+    }
   }
 
   /**
    * @return the Set of functional dependencies
    */
   public Set<FD> getSet() {
+    // the caller may change the set behind our back
+    this.byLeft = null;
     return this.fdset;
   }
 
+  /**
+   * Finds the FDs that apply to an attribute set, e.g. for closures, without
+   * testing every FD. The index behind it is built on the first lookup, so an
+   * FD set read by several threads should be looked up once before sharing.
+   * 
+   * @param attrs an attribute set
+   * @return the FDs whose left-hand side is a subset of attrs
+   */
+  public List<FD> withLeftSubsetOf(Set<String> attrs) {
+    List<FD> result = new ArrayList<>();
+    for (List<FD> same : this.byLeft().subsetsOf(attrs)) {
+      result.addAll(same);
+    }
+    return result;
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the FDs whose left-hand side is a superset of attrs
+   */
+  public List<FD> withLeftSupersetOf(Set<String> attrs) {
+    List<FD> result = new ArrayList<>();
+    for (List<FD> same : this.byLeft().supersetsOf(attrs)) {
+      result.addAll(same);
+    }
+    return result;
+  }
+
+  private SetTrie<List<FD>> byLeft() {
+    if (this.byLeft == null) {
+      this.byLeft = new SetTrie<>();
+      for (FD fd : this.fdset) {
+        this.index(fd);
+      }
+    }
+    return this.byLeft;
+  }
+
+  private void index(FD fd) {
+    List<FD> same = this.byLeft.get(fd.left());
+    if (same == null) {
+      same = new ArrayList<>(1);
+      this.byLeft.put(fd.left(), same);
+    }
+    same.add(fd);
+  }
+
+  private void unindex(FD fd) {
+    if (this.byLeft != null) {
+      List<FD> same = this.byLeft.get(fd.left());
+      same.remove(fd);
+      if (same.isEmpty()) {
+        this.byLeft.remove(fd.left());
+      }
+    }
+  }
+
   /**
    * @return the number of FDs stored in this set
    */
@@ -100,21 +222,8 @@ public class FDSet implements Iterable<FD> {
    * @return
    */
   public String toString(boolean linesep) {
-    final String SEP = (linesep) ? "\n" : ", ";
-    StringBuilder str = new StringBuilder();
-    for (FD fd : this.fdset) {
-      if (linesep) {
-        str.append("\t");
-      }
-      str.append(fd);
-      str.append(SEP);
-    }
-    if (str.length() > 0) {
-      str.delete(str.length() - SEP.length(), str.length());
-    }
-    str.append((linesep) ? "\n]" : "]");
-    str.insert(0, (linesep) ? "[\n" : "[");
-    return str.toString();
+    // packed sets are in insertion order, so sort them like the others
+    return FDWriter.toString((this.fdset instanceof TreeSet) ? this.fdset : new TreeSet<>(this.fdset), linesep);
   }
 
   /**
@@ -132,10 +241,31 @@ public class FDSet implements Iterable<FD> {
   /**
    * For a for-each loop to be used
    * 
-   * @return an iterator for the FD Set elements
+   * @return an iterator for the FD Set elements, whose remove() also keeps
+   *         the left-hand side index up to date
    */
   @Override
   public Iterator<FD> iterator() {
-    return this.fdset.iterator();
+    Iterator<FD> it = this.fdset.iterator();
+    return new Iterator<FD>() {
+      private FD last;
+
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public FD next() {
+        this.last = it.next();
+        return this.last;
+      }
+
+      @Override
+      public void remove() {
+        it.remove();
+        FDSet.this.unindex(this.last);
+      }
+    };
   }
 }
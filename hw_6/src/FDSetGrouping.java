@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions many FD sets into classes of logically equivalent ones, without
+ * ever computing a closure.
+ *
+ * Minimal covers are not unique (A --> B, B --> A, A --> C and A --> B,
+ * B --> A, B --> C are both minimal and equivalent), so they cannot be
+ * compared directly. Instead each FD set is canonicalized once, in parallel,
+ * to its minimal cover and a fingerprint that equivalent sets always share:
+ * for every attribute A with a non-trivial closure, the attributes that A
+ * alone determines. FD sets are bucketed by fingerprint, and within a bucket
+ * each one is compared with the representative of every class found so far
+ * by mutual implication, which takes polynomial time. Buckets are small in
+ * practice, so the whole grouping is close to linear in the number of sets.
+ *
+ * Two FD sets are equivalent here when each implies every FD of the other.
+ * Unlike FDSet.equals, this ignores attributes that only occur trivially, so
+ * {A --> A} is grouped with the empty FD set.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class FDSetGrouping {
+
+  private FDSetGrouping() {
+  }
+
+  /**
+   * A canonicalized FD set
+   */
+  private static final class Canonical {
+    final FDSet original;
+    final FDSet cover;
+    final String fingerprint;
+
+    Canonical(FDSet original) {
+      this.original = original;
+      this.cover = FDUtil.minimalCover(original);
+      this.fingerprint = fingerprint(this.cover);
+    }
+  }
+
+  /**
+   * @param fdsets any number of FD sets
+   * @return the equivalence classes: each holds FD sets with the same closure,
+   *         in input order, and the classes are ordered by their first member
+   */
+  public static List<List<FDSet>> group(Collection<FDSet> fdsets) {
+    List<List<FDSet>> result = new ArrayList<>();
+    for (List<Canonical> members : classes(fdsets)) {
+      result.add(members.stream().map(c -> c.original).collect(Collectors.toList()));
+    }
+    return result;
+  }
+
+  /**
+   * @param fdsets any number of FD sets
+   * @return one minimal cover per equivalence class, in the order of group
+   */
+  public static List<FDSet> distinct(Collection<FDSet> fdsets) {
+    return classes(fdsets).stream().map(members -> members.get(0).cover).collect(Collectors.toList());
+  }
+
+  private static List<List<Canonical>> classes(Collection<FDSet> fdsets) {
+    List<Canonical> canonical = fdsets.parallelStream().map(Canonical::new).collect(Collectors.toList());
+
+    Map<String, List<List<Canonical>>> buckets = new LinkedHashMap<>();
+    List<List<Canonical>> classes = new ArrayList<>();
+    for (Canonical c : canonical) {
+      List<List<Canonical>> bucket = buckets.computeIfAbsent(c.fingerprint, k -> new ArrayList<>());
+      List<Canonical> match = null;
+      for (List<Canonical> candidate : bucket) {
+        if (FDUtil.equivalent(candidate.get(0).cover, c.cover)) {
+          match = candidate;
+          break;
+        }
+      }
+      if (match == null) {
+        match = new ArrayList<>();
+        bucket.add(match);
+        classes.add(match);
+      }
+      match.add(c);
+    }
+    return classes;
+  }
+
+  /**
+   * @return "1A:1B1C;1B:1C;" for the non-trivial singleton closures
+   *         A --> BC and B --> C: attributes in sorted order, each name
+   *         prefixed with its length
+   */
+  static String fingerprint(FDSet fdset) {
+    Set<String> attrs = new TreeSet<>();
+    for (FD fd : fdset) {
+      attrs.addAll(fd.left());
+      attrs.addAll(fd.right());
+    }
+    StringBuilder str = new StringBuilder();
+    for (String attr : attrs) {
+      Set<String> closure = FDUtil.attributeClosure(Set.of(attr), fdset);
+      closure.remove(attr);
+      if (!closure.isEmpty()) {
+        str.append(attr.length()).append(attr).append(':');
+        for (String determined : closure) {
+          str.append(determined.length()).append(determined);
+        }
+        str.append(';');
+      }
+    }
+    return str.toString();
+  }
+}
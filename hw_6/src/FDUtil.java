@@ -2,6 +2,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.TreeSet;
 
 /**
  * This utility class is not meant to be instantitated, and just provides some
@@ -19,10 +20,22 @@ public final class FDUtil {
    * @return a set of trivial FDs with respect to the given FDSet
    */
   public static FDSet trivial(final FDSet fdset) {
-    FDSet trivialFdSet = new FDSet();
+    return trivial(fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Resolves all trivial FDs in the given set of FDs within the given limits
+   * 
+   * @param fdset (Immutable) FD Set
+   * @param ctx   the limits of the run
+   * @return a set of trivial FDs with respect to the given FDSet
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static FDSet trivial(final FDSet fdset, final ExecutionContext ctx) {
+    FDSet trivialFdSet = fdset.emptyCopy();
     for (FD fd : fdset) {
       Set<String> leftDeps = fd.getLeft();
-      for (Set<String> rightDep : powerSet(leftDeps)) {
+      for (Set<String> rightDep : powerSet(leftDeps, ctx)) {
         if (!rightDep.isEmpty()) {
           FD trivialFd = new FD(leftDeps, rightDep);
           trivialFdSet.add(trivialFd);
@@ -40,7 +53,7 @@ public final class FDUtil {
    * @return a set of augmented FDs
    */
   public static FDSet augment(final FDSet fdset, final Set<String> attrs) {
-    FDSet augmentFdSet = new FDSet();
+    FDSet augmentFdSet = fdset.emptyCopy();
     for (FD fd : fdset) {
       List<String> fdLeftCopy = new ArrayList<>(fd.getLeft());
       List<String> fdRightCopy = new ArrayList<>(fd.getRight());
@@ -59,12 +72,25 @@ public final class FDUtil {
    * @return all transitive FDs with respect to the input FD set
    */
   public static FDSet transitive(final FDSet fdset) {
+    return transitive(fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Exhaustively resolves transitive FDs within the given limits
+   * 
+   * @param fdset (Immutable) FD Set
+   * @param ctx   the limits of the run
+   * @return all transitive FDs with respect to the input FD set
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static FDSet transitive(final FDSet fdset, final ExecutionContext ctx) {
     FDSet fdSetCopy = new FDSet(fdset);
     FDSet transitiveSet = new FDSet(fdset);
     int startSize;
     do {
       startSize = transitiveSet.size();
       for (FD fd1 : fdSetCopy) {
+        ctx.checkpoint();
         for (FD fd2 : fdSetCopy) {
           if (!fd1.equals(fd2) && fd1.getRight().equals(fd2.getLeft())) {
             FD transitiveFd = new FD(fd1.getLeft(), fd2.getRight());
@@ -85,25 +111,169 @@ public final class FDUtil {
    * @return the closure of the input FD Set
    */
   public static FDSet fdSetClosure(final FDSet fdset) {
+    return fdSetClosure(fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Generates the closure of the given FD Set within the given limits. If a
+   * limit is hit, the exception carries the FDs derived so far (a subset of
+   * the closure) as its partial result.
+   * 
+   * @param fdset (Immutable) FD Set
+   * @param ctx   the limits of the run
+   * @return the closure of the input FD Set
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static FDSet fdSetClosure(final FDSet fdset, final ExecutionContext ctx) {
+    final boolean metrics = Metrics.isEnabled();
+    final long start = metrics ? System.nanoTime() : 0;
+    Metrics.ClosureEvent event = metrics ? new Metrics.ClosureEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+
     FDSet fdSetCopy = new FDSet(fdset);
-    FDSet temp = new FDSet();
     Set<String> attributes = new HashSet<>();
     for (FD fd : fdSetCopy) {
       attributes.addAll(fd.getLeft());
       attributes.addAll(fd.getRight());
     }
-    Set<Set<String>> attrPowerSet = powerSet(attributes);
+    int startSize;
+    int iterations = 0;
+    long generated = 0;
+    try {
+      ctx.checkPowerSet(attributes.size());
+      Set<Set<String>> attrPowerSet = powerSet(attributes, ctx);
+      do {
+        startSize = fdSetCopy.size();
+        iterations++;
+        FDSet derived = trivial(fdSetCopy, ctx);
+        generated += derived.size();
+        ctx.charge(derived.size());
+        fdSetCopy.addAll(derived);
+        for (Set<String> attr : attrPowerSet) {
+          derived = augment(fdSetCopy, attr);
+          generated += derived.size();
+          ctx.charge(derived.size());
+          fdSetCopy.addAll(derived);
+        }
+        derived = transitive(fdSetCopy, ctx);
+        generated += derived.size();
+        ctx.charge(derived.size());
+        fdSetCopy.addAll(derived);
+      } while (fdSetCopy.size() != startSize);
+    } catch (BudgetExceededException e) {
+      throw e.stoppedIn("fdSetClosure", fdSetCopy);
+    }
+
+    if (metrics) {
+      Metrics.add(Metrics.Counter.CLOSURE_CALLS, 1);
+      Metrics.add(Metrics.Counter.CLOSURE_ITERATIONS, iterations);
+      Metrics.add(Metrics.Counter.FDS_GENERATED, generated);
+      Metrics.add(Metrics.Counter.FDS_DEDUPLICATED, generated - (fdSetCopy.size() - fdset.size()));
+      Metrics.add(Metrics.Counter.CLOSURE_NANOS, System.nanoTime() - start);
+      event.inputFds = fdset.size();
+      event.closureFds = fdSetCopy.size();
+      event.iterations = iterations;
+      event.attributes = attributes.size();
+      event.commit();
+    }
+    return fdSetCopy;
+  }
+
+  /**
+   * Computes the closure of an attribute set: every attribute it determines
+   * under the given FD set
+   * 
+   * @param attrs (Immutable) attribute set
+   * @param fdset (Immutable) FD Set
+   * @return the closure of attrs under fdset
+   */
+  public static Set<String> attributeClosure(final Set<String> attrs, final FDSet fdset) {
+    Set<String> closure = new TreeSet<>(attrs);
     int startSize;
     do {
-      startSize = fdSetCopy.size();
-      fdSetCopy.addAll(trivial(fdSetCopy));
-      for (Set<String> attr : attrPowerSet) {
-        fdSetCopy.addAll(augment(fdSetCopy, attr));
+      startSize = closure.size();
+      // only the FDs whose left-hand side is already in the closure
+      for (FD fd : fdset.withLeftSubsetOf(closure)) {
+        closure.addAll(fd.right());
       }
-      fdSetCopy.addAll(transitive(fdSetCopy));
-    } while (fdSetCopy.size() != startSize);
+    } while (closure.size() != startSize);
+    return closure;
+  }
 
-    return fdSetCopy;
+  /**
+   * Tests whether an FD follows from an FD set, without computing the closure
+   * of the FD set
+   * 
+   * @param fdset (Immutable) FD Set
+   * @param fd    an FD
+   * @return true if fd is in the closure of fdset
+   */
+  public static boolean implies(final FDSet fdset, final FD fd) {
+    return attributeClosure(fd.left(), fdset).containsAll(fd.right());
+  }
+
+  /**
+   * Tests whether two FD sets are logically equivalent by checking that each
+   * implies every FD of the other, without computing either closure
+   * 
+   * @param fdset (Immutable) FD Set
+   * @param other (Immutable) FD Set
+   * @return true if both FD sets have the same closure
+   */
+  public static boolean equivalent(final FDSet fdset, final FDSet other) {
+    for (FD fd : other) {
+      if (!implies(fdset, fd)) {
+        return false;
+      }
+    }
+    for (FD fd : fdset) {
+      if (!implies(other, fd)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes a minimal cover of the given FD set: single attributes on the
+   * right, no extraneous attribute on the left and no redundant FD. The FDs
+   * are reduced in FDSet order, so the same input always gives the same
+   * cover, although two equivalent inputs may give different covers.
+   * 
+   * @param fdset (Immutable) FD Set
+   * @return an equivalent minimal FD set
+   */
+  public static FDSet minimalCover(final FDSet fdset) {
+    FDSet cover = new FDSet();
+    for (FD fd : fdset) {
+      for (String attr : fd.right()) {
+        if (!fd.left().contains(attr)) {
+          cover.add(new FD(fd.left(), Set.of(attr)));
+        }
+      }
+    }
+
+    FDSet reduced = new FDSet();
+    for (FD fd : cover) {
+      Set<String> left = new TreeSet<>(fd.left());
+      for (String attr : fd.left()) {
+        left.remove(attr);
+        if (!attributeClosure(left, cover).containsAll(fd.right())) {
+          left.add(attr);
+        }
+      }
+      reduced.add(new FD(left, fd.right()));
+    }
+
+    for (FD fd : new ArrayList<>(reduced.getSet())) {
+      reduced.remove(fd);
+      if (!implies(reduced, fd)) {
+        reduced.add(fd);
+      }
+    }
+    return reduced;
   }
 
   /**
@@ -113,8 +283,37 @@ public final class FDUtil {
    * @param set Any set of elements (Immutable)
    * @return the power set of the input set
    */
-  @SuppressWarnings("unchecked")
   public static <E> Set<Set<E>> powerSet(final Set<E> set) {
+    return powerSet(set, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Generates the power set of the given set within the given limits. Every
+   * subset counts towards the context's cap on generated elements.
+   * 
+   * @param set Any set of elements (Immutable)
+   * @param ctx the limits of the run
+   * @return the power set of the input set
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static <E> Set<Set<E>> powerSet(final Set<E> set, final ExecutionContext ctx) {
+    if (!Metrics.isEnabled()) {
+      return powerSetOf(set, ctx);
+    }
+    long start = System.nanoTime();
+    Set<Set<E>> pset = powerSetOf(set, ctx);
+    Metrics.add(Metrics.Counter.POWER_SET_CALLS, 1);
+    Metrics.add(Metrics.Counter.POWER_SET_SUBSETS, pset.size());
+    Metrics.add(Metrics.Counter.POWER_SET_NANOS, System.nanoTime() - start);
+    return pset;
+  }
+
+  /**
+   * Recursive step of powerSet, kept separate so that only top-level calls are
+   * counted in the metrics
+   */
+  @SuppressWarnings("unchecked")
+  private static <E> Set<Set<E>> powerSetOf(final Set<E> set, final ExecutionContext ctx) {
 
     // base case: power set of the empty set is the set containing the empty set
     if (set.size() == 0) {
@@ -128,10 +327,14 @@ public final class FDUtil {
     set.remove(attrs[0]);
 
     // recurse and obtain the power set of the reduced set of elements
-    Set<Set<E>> currentPset = FDUtil.powerSet(set);
-
-    // restore the element from input set
-    set.add(attrs[0]);
+    Set<Set<E>> currentPset;
+    try {
+      currentPset = FDUtil.powerSetOf(set, ctx);
+    } finally {
+      // restore the element from input set, even if a limit was hit
+      set.add(attrs[0]);
+    }
+    ctx.charge(currentPset.size());
 
     // iterate through all elements of current power set and union with first
     // element
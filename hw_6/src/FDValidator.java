@@ -0,0 +1,709 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks in one pass over a CSV file which FDs of an FD set hold on it.
+ *
+ * The file is memory-mapped in chunks that end at line breaks, and the chunks
+ * are scanned in parallel. Fields are never copied out of the mapping: each
+ * one is hashed in place to a 64-bit fingerprint, and the fingerprints of the
+ * left- and right-hand side columns of every FD are folded into one long
+ * each. Per FD, an open-addressing table of primitive longs maps every
+ * distinct left-hand side to its first right-hand side, a row count and the
+ * offsets of two rows that disagree, so memory grows with the number of
+ * distinct left-hand side values and not with the size of the file.
+ *
+ * Because values are compared by fingerprint, two different values are taken
+ * for equal with a probability of about 2^-64 per comparison. Quoted fields
+ * may contain commas but not line breaks, since chunks are split at lines.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class FDValidator {
+
+  /** Largest chunk mapped at once; mappings are limited to 2 GB */
+  private static final long MAX_CHUNK = 1L << 30;
+
+  private final Path file;
+  private final FD[] fds;
+  private final int[][] lhsColumns;
+  private final int[][] rhsColumns;
+  private final boolean[] needed;
+  private final int maxExamples;
+  private final boolean measureError;
+
+  private FDValidator(Path file, String[] header, FDSet fdset, int maxExamples, boolean measureError) {
+    this.file = file;
+    this.fds = fdset.getSet().toArray(new FD[0]);
+    this.lhsColumns = new int[this.fds.length][];
+    this.rhsColumns = new int[this.fds.length][];
+    this.needed = new boolean[header.length];
+    this.maxExamples = maxExamples;
+    this.measureError = measureError;
+    List<String> columns = Arrays.asList(header);
+    for (int i = 0; i < this.fds.length; i++) {
+      this.lhsColumns[i] = this.columns(columns, this.fds[i].getLeft());
+      this.rhsColumns[i] = this.columns(columns, this.fds[i].getRight());
+    }
+  }
+
+  private int[] columns(List<String> header, Iterable<String> attrs) {
+    List<Integer> cols = new ArrayList<>();
+    for (String attr : attrs) {
+      int c = header.indexOf(attr);
+      if (c < 0) {
+        throw new IllegalArgumentException("Attribute " + attr + " is not a column of " + this.file + ".");
+      }
+      this.needed[c] = true;
+      cols.add(c);
+    }
+    return cols.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Usage: FDValidator file.csv fds.txt
+   *
+   * @param args command line arguments
+   * @throws Exception if a file cannot be read
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      System.err.println("Usage: FDValidator file.csv fds.txt");
+      System.exit(2);
+    }
+    Report report = validate(Paths.get(args[0]), FDFormat.read(Paths.get(args[1])));
+    System.out.print(report);
+    System.exit(report.allHold() ? 0 : 1);
+  }
+
+  /**
+   * Validates with one thread per core and up to 3 example rows per FD
+   *
+   * @param file  a CSV file with a header line
+   * @param fdset the FDs to check, over the file's columns
+   * @return the outcome for every FD
+   * @throws IOException if the file cannot be read
+   */
+  public static Report validate(Path file, FDSet fdset) throws IOException {
+    return validate(file, fdset, Runtime.getRuntime().availableProcessors(), 3);
+  }
+
+  /**
+   * @param file        a CSV file with a header line
+   * @param fdset       the FDs to check, over the file's columns
+   * @param parallelism how many chunks to scan at once
+   * @param maxExamples how many violating row pairs to report per FD
+   * @return the outcome for every FD
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if an FD mentions an unknown column
+   */
+  public static Report validate(Path file, FDSet fdset, int parallelism, int maxExamples) throws IOException {
+    return validate(file, fdset, parallelism, maxExamples, false);
+  }
+
+  /**
+   * Optionally also measures the g3 error of every FD: the fraction of rows
+   * that would have to be removed for it to hold. This keeps a count per
+   * distinct pair of left- and right-hand side values, so it needs more
+   * memory than a plain check.
+   *
+   * @param file         a CSV file with a header line
+   * @param fdset        the FDs to check, over the file's columns
+   * @param parallelism  how many chunks to scan at once
+   * @param maxExamples  how many violating row pairs to report per FD
+   * @param measureError whether to compute the g3 error of every FD
+   * @return the outcome for every FD
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if an FD mentions an unknown column
+   */
+  public static Report validate(Path file, FDSet fdset, int parallelism, int maxExamples, boolean measureError)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      String headerLine = readLine(channel, 0);
+      if (headerLine == null) {
+        throw new IOException(file + " is empty.");
+      }
+      List<String> header = CsvTable.readRecord(new BufferedReader(new StringReader(headerLine)));
+      FDValidator validator = new FDValidator(file, header.toArray(new String[0]), fdset, maxExamples,
+          measureError);
+      long start = headerLine.getBytes(StandardCharsets.UTF_8).length + 1;
+      return validator.run(channel, Math.min(start, channel.size()), parallelism);
+    }
+  }
+
+  private Report run(FileChannel channel, long start, int parallelism) throws IOException {
+    List<long[]> chunks = this.chunks(channel, start, parallelism);
+    GroupTable[] merged = new GroupTable[this.fds.length];
+    for (int i = 0; i < merged.length; i++) {
+      merged[i] = new GroupTable(this.measureError);
+    }
+    long rows = 0;
+
+    int window = Math.max(1, parallelism);
+    ExecutorService pool = Executors.newFixedThreadPool(window);
+    try {
+      // at most window chunks are scanned or waiting to be merged at once, and
+      // a chunk's tables are dropped as soon as they are merged, so memory
+      // does not grow with the number of chunks
+      Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+      int next = 0;
+      while (next < chunks.size() && inFlight.size() < window) {
+        inFlight.add(this.submit(pool, channel, chunks.get(next++)));
+      }
+      while (!inFlight.isEmpty()) {
+        ChunkResult result = inFlight.poll().get();
+        rows += result.rows;
+        for (int i = 0; i < merged.length; i++) {
+          merged[i].mergeFrom(result.tables[i]);
+        }
+        if (next < chunks.size()) {
+          inFlight.add(this.submit(pool, channel, chunks.get(next++)));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while validating " + this.file + ".", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Failed to validate " + this.file + ".", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    List<Result> results = new ArrayList<>();
+    for (int i = 0; i < this.fds.length; i++) {
+      results.add(this.result(channel, this.fds[i], merged[i], rows));
+    }
+    return new Report(rows, results);
+  }
+
+  private Future<ChunkResult> submit(ExecutorService pool, FileChannel channel, long[] chunk) {
+    return pool.submit(() -> this.scan(channel, chunk[0], chunk[1]));
+  }
+
+  /**
+   * Splits [start, size) into chunks that end right after a line break
+   */
+  private List<long[]> chunks(FileChannel channel, long start, int parallelism) throws IOException {
+    long size = channel.size();
+    long target = Math.max(1 << 20, (size - start) / Math.max(1, 4 * parallelism));
+    target = Math.min(target, MAX_CHUNK);
+    List<long[]> chunks = new ArrayList<>();
+    long from = start;
+    while (from < size) {
+      long to = Math.min(size, from + target);
+      if (to < size) {
+        to = nextLine(channel, to);
+      }
+      if (to - from > Integer.MAX_VALUE) {
+        throw new IOException("A line of " + this.file + " is longer than 1 GB.");
+      }
+      chunks.add(new long[] { from, to });
+      from = to;
+    }
+    return chunks;
+  }
+
+  /**
+   * Scans one chunk of whole lines
+   */
+  private ChunkResult scan(FileChannel channel, long from, long to) throws IOException {
+    MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    GroupTable[] tables = new GroupTable[this.fds.length];
+    for (int i = 0; i < tables.length; i++) {
+      tables[i] = new GroupTable(this.measureError);
+    }
+    long[] hashes = new long[this.needed.length];
+    long rows = 0;
+    int pos = 0;
+    int limit = buf.limit();
+    while (pos < limit) {
+      int lineStart = pos;
+      int column = 0;
+      boolean quoted = false;
+      long h = FNV_OFFSET;
+      boolean blank = true;
+      // hash every field of the line in place
+      while (pos < limit) {
+        byte b = buf.get(pos++);
+        if (quoted) {
+          if (b == '"') {
+            if (pos < limit && buf.get(pos) == '"') {
+              h = (h ^ '"') * FNV_PRIME;
+              pos++;
+            } else {
+              quoted = false;
+            }
+          } else {
+            h = (h ^ (b & 0xff)) * FNV_PRIME;
+          }
+        } else if (b == '"') {
+          quoted = true;
+          blank = false;
+        } else if (b == ',' || b == '\n') {
+          if (column < hashes.length && this.needed[column]) {
+            hashes[column] = h;
+          }
+          column++;
+          h = FNV_OFFSET;
+          if (b == '\n') {
+            break;
+          }
+          blank = false;
+        } else if (b != '\r') {
+          h = (h ^ (b & 0xff)) * FNV_PRIME;
+          blank = false;
+        }
+      }
+      if (pos == limit && (limit == 0 || buf.get(limit - 1) != '\n')) {
+        // the last line of the file has no line break
+        if (column < hashes.length && this.needed[column]) {
+          hashes[column] = h;
+        }
+        column++;
+      }
+      if (blank && column <= 1) {
+        continue;
+      }
+      if (column != hashes.length) {
+        throw new IOException(this.file + ": the line at byte " + (from + lineStart) + " has " + column
+            + " fields, expected " + hashes.length + ".");
+      }
+      rows++;
+      for (int i = 0; i < tables.length; i++) {
+        tables[i].add(fold(hashes, this.lhsColumns[i]), fold(hashes, this.rhsColumns[i]), from + lineStart);
+      }
+    }
+    return new ChunkResult(rows, tables);
+  }
+
+  private Result result(FileChannel channel, FD fd, GroupTable table, long rows) throws IOException {
+    long violatingGroups = 0;
+    long violatingRows = 0;
+    List<String[]> examples = new ArrayList<>();
+    for (int slot = 0; slot < table.keys.length; slot++) {
+      if (table.used[slot] && table.conflict[slot] >= 0) {
+        violatingGroups++;
+        violatingRows += table.count[slot];
+        if (examples.size() < this.maxExamples) {
+          examples.add(new String[] { readLine(channel, table.first[slot]), readLine(channel, table.conflict[slot]) });
+        }
+      }
+    }
+    double error = Double.NaN;
+    if (table.pairs != null) {
+      // every left-hand side group keeps the rows of its most common right-hand side
+      CountTable largest = new CountTable();
+      for (int slot = 0; slot < table.pairs.keys.length; slot++) {
+        if (table.pairs.used[slot]) {
+          largest.max(table.pairs.aux[slot], table.pairs.count[slot]);
+        }
+      }
+      long kept = 0;
+      for (int slot = 0; slot < largest.keys.length; slot++) {
+        if (largest.used[slot]) {
+          kept += largest.count[slot];
+        }
+      }
+      error = (rows == 0) ? 0.0 : (double) (rows - kept) / rows;
+    }
+    return new Result(fd, table.size, violatingGroups, violatingRows, error, examples);
+  }
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * Combines the field fingerprints of some columns, in order, into one
+   */
+  private static long fold(long[] hashes, int[] columns) {
+    long h = 0x9e3779b97f4a7c15L;
+    for (int c : columns) {
+      h = mix(h * 31 + hashes[c]);
+    }
+    return h;
+  }
+
+  /** The finalizer of MurmurHash3, to spread fingerprints over the table */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * @return the offset just after the first line break at or after position
+   */
+  private static long nextLine(FileChannel channel, long position) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(1 << 13);
+    long pos = position;
+    while (true) {
+      buf.clear();
+      int n = channel.read(buf, pos);
+      if (n <= 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < n; i++) {
+        if (buf.get(i) == '\n') {
+          return pos + i + 1;
+        }
+      }
+      pos += n;
+    }
+  }
+
+  /**
+   * @return the line starting at the given offset, without its line break,
+   *         or null at the end of the file
+   */
+  private static String readLine(FileChannel channel, long position) throws IOException {
+    if (position >= channel.size()) {
+      return null;
+    }
+    long end = nextLine(channel, position);
+    ByteBuffer buf = ByteBuffer.allocate((int) Math.min(end - position, 1 << 20));
+    channel.read(buf, position);
+    String line = new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8);
+    while (line.endsWith("\n") || line.endsWith("\r")) {
+      line = line.substring(0, line.length() - 1);
+    }
+    return line;
+  }
+
+  private static final class ChunkResult {
+    final long rows;
+    final GroupTable[] tables;
+
+    ChunkResult(long rows, GroupTable[] tables) {
+      this.rows = rows;
+      this.tables = tables;
+    }
+  }
+
+  /**
+   * An open-addressing hash table from left-hand side fingerprint to the first
+   * right-hand side fingerprint seen with it, its row count, and the offsets
+   * of its first row and of a row with a different right-hand side (-1 while
+   * there is none)
+   */
+  private static final class GroupTable {
+    long[] keys = new long[16];
+    long[] rhs = new long[16];
+    long[] count = new long[16];
+    long[] first = new long[16];
+    long[] conflict = new long[16];
+    boolean[] used = new boolean[16];
+    int size = 0;
+    /** Rows per pair of left- and right-hand side, if the error is measured */
+    final CountTable pairs;
+
+    GroupTable(boolean measureError) {
+      this.pairs = measureError ? new CountTable() : null;
+    }
+
+    void add(long key, long value, long offset) {
+      this.put(key, value, 1, offset, -1);
+      if (this.pairs != null) {
+        this.pairs.add(mix(key * 31 + value), key, 1);
+      }
+    }
+
+    void mergeFrom(GroupTable other) {
+      if (this.pairs != null) {
+        this.pairs.mergeFrom(other.pairs);
+      }
+      for (int slot = 0; slot < other.keys.length; slot++) {
+        if (other.used[slot]) {
+          this.put(other.keys[slot], other.rhs[slot], other.count[slot], other.first[slot], other.conflict[slot]);
+        }
+      }
+    }
+
+    private void put(long key, long value, long n, long offset, long conflictOffset) {
+      int mask = this.keys.length - 1;
+      int slot = (int) key & mask;
+      while (this.used[slot]) {
+        if (this.keys[slot] == key) {
+          this.count[slot] += n;
+          if (this.conflict[slot] < 0) {
+            if (this.rhs[slot] != value) {
+              this.conflict[slot] = offset;
+            } else if (conflictOffset >= 0) {
+              this.conflict[slot] = conflictOffset;
+            }
+          }
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      this.used[slot] = true;
+      this.keys[slot] = key;
+      this.rhs[slot] = value;
+      this.count[slot] = n;
+      this.first[slot] = offset;
+      this.conflict[slot] = conflictOffset;
+      if (++this.size * 2 > this.keys.length) {
+        this.grow();
+      }
+    }
+
+    private void grow() {
+      long[] oldKeys = this.keys;
+      long[] oldRhs = this.rhs;
+      long[] oldCount = this.count;
+      long[] oldFirst = this.first;
+      long[] oldConflict = this.conflict;
+      boolean[] oldUsed = this.used;
+      int capacity = oldKeys.length * 2;
+      this.keys = new long[capacity];
+      this.rhs = new long[capacity];
+      this.count = new long[capacity];
+      this.first = new long[capacity];
+      this.conflict = new long[capacity];
+      this.used = new boolean[capacity];
+      this.size = 0;
+      for (int slot = 0; slot < oldKeys.length; slot++) {
+        if (oldUsed[slot]) {
+          this.put(oldKeys[slot], oldRhs[slot], oldCount[slot], oldFirst[slot], oldConflict[slot]);
+        }
+      }
+    }
+  }
+
+  /**
+   * An open-addressing hash table from a fingerprint to a count, and to one
+   * more long that is stored with the first occurrence of the fingerprint
+   */
+  private static final class CountTable {
+    long[] keys = new long[16];
+    long[] aux = new long[16];
+    long[] count = new long[16];
+    boolean[] used = new boolean[16];
+    int size = 0;
+
+    void add(long key, long value, long n) {
+      int slot = this.slot(key, value);
+      this.count[slot] += n;
+    }
+
+    void max(long key, long n) {
+      int slot = this.slot(key, 0);
+      this.count[slot] = Math.max(this.count[slot], n);
+    }
+
+    void mergeFrom(CountTable other) {
+      for (int slot = 0; slot < other.keys.length; slot++) {
+        if (other.used[slot]) {
+          this.add(other.keys[slot], other.aux[slot], other.count[slot]);
+        }
+      }
+    }
+
+    /**
+     * @return the slot of the key, claimed with a zero count if it is new
+     */
+    private int slot(long key, long value) {
+      if ((this.size + 1) * 2 > this.keys.length) {
+        this.grow();
+      }
+      int mask = this.keys.length - 1;
+      int slot = (int) key & mask;
+      while (this.used[slot]) {
+        if (this.keys[slot] == key) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+      this.used[slot] = true;
+      this.keys[slot] = key;
+      this.aux[slot] = value;
+      this.size++;
+      return slot;
+    }
+
+    private void grow() {
+      long[] oldKeys = this.keys;
+      long[] oldAux = this.aux;
+      long[] oldCount = this.count;
+      boolean[] oldUsed = this.used;
+      int capacity = oldKeys.length * 2;
+      this.keys = new long[capacity];
+      this.aux = new long[capacity];
+      this.count = new long[capacity];
+      this.used = new boolean[capacity];
+      this.size = 0;
+      for (int slot = 0; slot < oldKeys.length; slot++) {
+        if (oldUsed[slot]) {
+          this.add(oldKeys[slot], oldAux[slot], oldCount[slot]);
+        }
+      }
+    }
+  }
+
+  /**
+   * The outcome of checking one FD
+   */
+  public static final class Result {
+    private final FD fd;
+    private final long groups;
+    private final long violatingGroups;
+    private final long violatingRows;
+    private final double error;
+    private final List<String[]> examples;
+
+    Result(FD fd, long groups, long violatingGroups, long violatingRows, double error, List<String[]> examples) {
+      this.fd = fd;
+      this.groups = groups;
+      this.violatingGroups = violatingGroups;
+      this.violatingRows = violatingRows;
+      this.error = error;
+      this.examples = Collections.unmodifiableList(examples);
+    }
+
+    /**
+     * @return the FD that was checked
+     */
+    public FD getFD() {
+      return this.fd;
+    }
+
+    /**
+     * @return true if no two rows agree on the left but not on the right
+     */
+    public boolean holds() {
+      return this.violatingGroups == 0;
+    }
+
+    /**
+     * @return the number of distinct left-hand side values
+     */
+    public long getGroups() {
+      return this.groups;
+    }
+
+    /**
+     * @return the number of left-hand side values with more than one
+     *         right-hand side value
+     */
+    public long getViolatingGroups() {
+      return this.violatingGroups;
+    }
+
+    /**
+     * @return the number of rows whose left-hand side value has more than one
+     *         right-hand side value
+     */
+    public long getViolatingRows() {
+      return this.violatingRows;
+    }
+
+    /**
+     * @return the fraction of rows that would have to be removed for the FD to
+     *         hold (g3), or NaN if it was not measured
+     */
+    public double getError() {
+      return this.error;
+    }
+
+    /**
+     * @return pairs of rows that agree on the left but not on the right
+     */
+    public List<String[]> getExamples() {
+      return this.examples;
+    }
+  }
+
+  /**
+   * The outcome of checking every FD of a set
+   */
+  public static final class Report {
+    private final long rows;
+    private final List<Result> results;
+
+    Report(long rows, List<Result> results) {
+      this.rows = rows;
+      this.results = Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return the number of data rows in the file
+     */
+    public long getRows() {
+      return this.rows;
+    }
+
+    /**
+     * @return one result per FD, in FD order
+     */
+    public List<Result> getResults() {
+      return this.results;
+    }
+
+    /**
+     * @return true if every FD holds
+     */
+    public boolean allHold() {
+      return this.results.stream().allMatch(Result::holds);
+    }
+
+    /**
+     * @return the FDs that hold, as a new FD set
+     */
+    public FDSet holding() {
+      FDSet fdset = new FDSet();
+      for (Result result : this.results) {
+        if (result.holds()) {
+          fdset.add(result.fd);
+        }
+      }
+      return fdset;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder str = new StringBuilder();
+      str.append(this.rows).append(" rows\n");
+      for (Result result : this.results) {
+        str.append(result.fd).append(": ");
+        if (result.holds()) {
+          str.append("holds\n");
+          continue;
+        }
+        str.append("violated by ").append(result.violatingRows).append(" rows in ").append(result.violatingGroups)
+            .append(" of ").append(result.groups).append(" groups");
+        if (!Double.isNaN(result.error)) {
+          str.append(String.format(", g3 = %.6f", result.error));
+        }
+        str.append("\n");
+        for (String[] example : result.examples) {
+          str.append("\t").append(example[0]).append("\n\t").append(example[1]).append("\n\n");
+        }
+      }
+      return str.toString();
+    }
+  }
+}
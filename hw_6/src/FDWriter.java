@@ -0,0 +1,310 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Writes FDs and FD sets in the format of FD.toString and FDSet.toString
+ * straight into an Appendable (a Writer, a StringBuilder, ...) or a file
+ * channel, without building the whole text first. Attribute names are copied
+ * character by character, so no intermediate strings are made per FD.
+ *
+ * FDs can come from a lazy Iterator or Stream, so that a closure of millions
+ * of FDs can be written to disk while it is being produced:
+ *
+ * try (FDWriter out = FDWriter.open(path)) {
+ *   out.writeLines(fds.stream());
+ * }
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class FDWriter implements Closeable, Flushable {
+
+  private final Appendable out;
+
+  /**
+   * @param out where to write to; flushed and closed with this writer if it
+   *            is Flushable or Closeable
+   */
+  public FDWriter(Appendable out) {
+    this.out = out;
+  }
+
+  /**
+   * Opens a file for writing through a 64 KB buffer, replacing its contents
+   *
+   * @param file the file to write
+   * @return a writer into the file, to be closed
+   * @throws IOException if the file cannot be opened
+   */
+  public static FDWriter open(Path file) throws IOException {
+    return new FDWriter(new ChannelAppendable(FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)));
+  }
+
+  /**
+   * @param fd an FD
+   * @return the FD as FD.toString shows it
+   */
+  static String toString(FD fd) {
+    StringBuilder str = new StringBuilder();
+    try {
+      append(str, fd);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+      throw new UncheckedIOException(e);
+    }
+    return str.toString();
+  }
+
+  /**
+   * @param fds     FDs in the order to show them
+   * @param linesep whether to put each FD on its own line
+   * @return the FDs as FDSet.toString(linesep) shows them
+   */
+  static String toString(Iterable<FD> fds, boolean linesep) {
+    StringBuilder str = new StringBuilder();
+    try {
+      new FDWriter(str).writeSet(fds.iterator(), linesep);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+      throw new UncheckedIOException(e);
+    }
+    return str.toString();
+  }
+
+  /**
+   * Writes one FD, without a line break
+   *
+   * @param fd an FD
+   * @return this writer
+   * @throws IOException if writing fails
+   */
+  public FDWriter write(FD fd) throws IOException {
+    append(this.out, fd);
+    return this;
+  }
+
+  /**
+   * Writes an FD set as FDSet.toString(linesep) does
+   *
+   * @param fdset   an FD set
+   * @param linesep whether to put each FD on its own line
+   * @return this writer
+   * @throws IOException if writing fails
+   */
+  public FDWriter write(FDSet fdset, boolean linesep) throws IOException {
+    return this.writeSet(fdset.iterator(), linesep);
+  }
+
+  /**
+   * Writes FDs in brackets as FDSet.toString(linesep) does, taking them from
+   * the iterator one at a time
+   *
+   * @param fds     the FDs in the order to write them
+   * @param linesep whether to put each FD on its own line
+   * @return this writer
+   * @throws IOException if writing fails
+   */
+  public FDWriter writeSet(Iterator<FD> fds, boolean linesep) throws IOException {
+    this.out.append(linesep ? "[\n" : "[");
+    boolean first = true;
+    while (fds.hasNext()) {
+      if (!first) {
+        this.out.append(linesep ? "\n" : ", ");
+      }
+      if (linesep) {
+        this.out.append('\t');
+      }
+      append(this.out, fds.next());
+      first = false;
+    }
+    this.out.append(linesep ? "\n]" : "]");
+    return this;
+  }
+
+  /**
+   * Writes one FD per line with nothing around them, the format FDFormat
+   * reads back
+   *
+   * @param fds the FDs in the order to write them
+   * @return the number of FDs written
+   * @throws IOException if writing fails
+   */
+  public long writeLines(Iterator<FD> fds) throws IOException {
+    long n = 0;
+    while (fds.hasNext()) {
+      append(this.out, fds.next());
+      this.out.append('\n');
+      n++;
+    }
+    return n;
+  }
+
+  /**
+   * Writes one FD per line, consuming the stream lazily
+   *
+   * @param fds the FDs in the order to write them
+   * @return the number of FDs written
+   * @throws IOException if writing fails
+   */
+  public long writeLines(Stream<FD> fds) throws IOException {
+    return this.writeLines(fds.iterator());
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (this.out instanceof Flushable) {
+      ((Flushable) this.out).flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.flush();
+    if (this.out instanceof Closeable) {
+      ((Closeable) this.out).close();
+    }
+  }
+
+  /**
+   * Formats an FD like FD.toString: "AB --> C" when every attribute is a
+   * single character, otherwise "[A1,B] --> [C]" with spaces dropped
+   */
+  private static void append(Appendable out, FD fd) throws IOException {
+    boolean brackets = false;
+    for (String attr : fd.left()) {
+      brackets |= attr.length() > 1;
+    }
+    for (String attr : fd.right()) {
+      brackets |= attr.length() > 1;
+    }
+    appendSide(out, fd.left(), brackets);
+    out.append(" --> ");
+    appendSide(out, fd.right(), brackets);
+  }
+
+  private static void appendSide(Appendable out, Set<String> attrs, boolean brackets) throws IOException {
+    if (brackets) {
+      out.append('[');
+    }
+    boolean first = true;
+    for (String attr : attrs) {
+      if (brackets && !first) {
+        out.append(',');
+      }
+      for (int i = 0; i < attr.length(); i++) {
+        char ch = attr.charAt(i);
+        // the same characters the old regular expressions dropped
+        if (brackets ? ch != ' ' : ch != '[' && ch != ']') {
+          out.append(ch);
+        }
+      }
+      first = false;
+    }
+    if (brackets) {
+      out.append(']');
+    }
+  }
+
+  /**
+   * Encodes characters as UTF-8 into a direct buffer that is drained into a
+   * channel whenever it fills up. Like String.getBytes, an unpaired surrogate
+   * is written as '?'.
+   */
+  private static final class ChannelAppendable implements Appendable, Flushable, Closeable {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+    private char highSurrogate = 0;
+
+    ChannelAppendable(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      return this.append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      for (int i = start; i < end; i++) {
+        this.append(csq.charAt(i));
+      }
+      return this;
+    }
+
+    @Override
+    public Appendable append(char ch) throws IOException {
+      if (this.buf.remaining() < 4) {
+        this.drain();
+      }
+      if (this.highSurrogate != 0 && !Character.isLowSurrogate(ch)) {
+        this.buf.put((byte) '?');
+        this.highSurrogate = 0;
+      }
+      if (ch < 0x80) {
+        this.buf.put((byte) ch);
+      } else if (ch < 0x800) {
+        this.buf.put((byte) (0xc0 | (ch >> 6)));
+        this.buf.put((byte) (0x80 | (ch & 0x3f)));
+      } else if (Character.isHighSurrogate(ch)) {
+        this.highSurrogate = ch;
+      } else if (Character.isLowSurrogate(ch)) {
+        if (this.highSurrogate == 0) {
+          this.buf.put((byte) '?');
+          return this;
+        }
+        int cp = Character.toCodePoint(this.highSurrogate, ch);
+        this.highSurrogate = 0;
+        this.buf.put((byte) (0xf0 | (cp >> 18)));
+        this.buf.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+        this.buf.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+        this.buf.put((byte) (0x80 | (cp & 0x3f)));
+      } else {
+        this.buf.put((byte) (0xe0 | (ch >> 12)));
+        this.buf.put((byte) (0x80 | ((ch >> 6) & 0x3f)));
+        this.buf.put((byte) (0x80 | (ch & 0x3f)));
+      }
+      return this;
+    }
+
+    private void drain() throws IOException {
+      this.buf.flip();
+      while (this.buf.hasRemaining()) {
+        this.channel.write(this.buf);
+      }
+      this.buf.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      this.drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (this.highSurrogate != 0) {
+          if (!this.buf.hasRemaining()) {
+            this.drain();
+          }
+          this.buf.put((byte) '?');
+          this.highSurrogate = 0;
+        }
+        this.drain();
+      } finally {
+        this.channel.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Discovers the minimal unique column combinations of a table: the sets of
+ * columns on which no two rows agree, none of whose proper subsets is unique.
+ * These are the keys the data actually has, as opposed to the keys that
+ * Normalizer.findSuperkeys derives from a set of FDs.
+ *
+ * The search is apriori-style: level k+1 is built only from non-unique sets
+ * of level k, and a candidate is kept only if all of its subsets one smaller
+ * are non-unique, since otherwise it cannot be minimal. A candidate's
+ * uniqueness is tested by intersecting the stripped partitions of the two
+ * sets it was joined from, stopping at the first pair of rows that agree.
+ * The full partition of a non-unique candidate is only computed once it is
+ * needed to test the next level.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class KeyDiscovery {
+
+  private final CsvTable table;
+  private final int maxSize;
+  private final ExecutionContext ctx;
+  private final ThreadLocal<int[]> scratch;
+
+  /**
+   * A non-unique column set; its partition is the product of its parents'
+   * partitions, computed when first needed
+   */
+  private static final class Node {
+    StrippedPartition partition;
+    Node left;
+    Node right;
+
+    Node(StrippedPartition partition) {
+      this.partition = partition;
+    }
+
+    Node(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+  }
+
+  private KeyDiscovery(CsvTable table, int maxSize, ExecutionContext ctx) {
+    if (table.columnCount() > 64) {
+      throw new IllegalArgumentException("At most 64 columns are supported, not " + table.columnCount() + ".");
+    }
+    this.table = table;
+    this.maxSize = maxSize;
+    this.ctx = ctx;
+    this.scratch = ThreadLocal.withInitial(() -> {
+      int[] t = new int[table.rows()];
+      Arrays.fill(t, -1);
+      return t;
+    });
+  }
+
+  /**
+   * Usage: KeyDiscovery file.csv [maxSize]
+   *
+   * @param args command line arguments
+   * @throws IOException if the file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: KeyDiscovery file.csv [maxSize]");
+      System.exit(2);
+    }
+    CsvTable table = CsvTable.read(Paths.get(args[0]));
+    int maxSize = (args.length > 1) ? Integer.parseInt(args[1]) : table.columnCount();
+    for (Set<String> key : discover(table, maxSize, ExecutionContext.unbounded())) {
+      System.out.println(key);
+    }
+  }
+
+  /**
+   * @param table an encoded table
+   * @return every minimal unique column combination of the table
+   */
+  public static Set<Set<String>> discover(CsvTable table) {
+    return discover(table, table.columnCount(), ExecutionContext.unbounded());
+  }
+
+  /**
+   * @param table   an encoded table
+   * @param maxSize the largest key to look for
+   * @param ctx     the limits of the run
+   * @return every minimal unique column combination with at most maxSize
+   *         columns, smallest first
+   * @throws BudgetExceededException if a limit is hit; the keys found so far
+   *                                 are attached
+   */
+  public static Set<Set<String>> discover(CsvTable table, int maxSize, ExecutionContext ctx) {
+    return new KeyDiscovery(table, maxSize, ctx).run();
+  }
+
+  /**
+   * Reduces a set of superkeys, such as the result of
+   * Normalizer.findSuperkeys, to the minimal ones, so that they can be
+   * compared with the keys discovered from data
+   *
+   * @param superkeys sets of attributes
+   * @return the sets none of whose proper subsets is in superkeys
+   */
+  public static Set<Set<String>> minimal(Set<Set<String>> superkeys) {
+    List<Set<String>> bySize = new ArrayList<>(superkeys);
+    bySize.sort(Comparator.comparingInt(Set::size));
+    Set<Set<String>> keys = new HashSet<>();
+    for (Set<String> candidate : bySize) {
+      if (keys.stream().noneMatch(candidate::containsAll)) {
+        keys.add(candidate);
+      }
+    }
+    return keys;
+  }
+
+  private Set<Set<String>> run() {
+    Set<Set<String>> keys = new LinkedHashSet<>();
+    try {
+      if (this.table.rows() < 2) {
+        // every column set is unique, the empty one included
+        keys.add(new TreeSet<>());
+        return keys;
+      }
+      Map<Long, Node> level = new LinkedHashMap<>();
+      for (int c = 0; c < this.table.columnCount(); c++) {
+        StrippedPartition partition = StrippedPartition.of(this.table.codes(c), this.table.cardinality(c));
+        if (partition.isUnique()) {
+          keys.add(this.names(1L << c));
+        } else {
+          level.put(1L << c, new Node(partition));
+        }
+      }
+
+      for (int size = 2; size <= this.maxSize && level.size() > 1; size++) {
+        Map<Long, Node> candidates = this.generateNextLevel(level);
+        this.ctx.charge(candidates.size());
+        this.materialize(candidates.values());
+        List<Long> masks = new ArrayList<>(candidates.keySet());
+        boolean[] unique = new boolean[masks.size()];
+        IntStream.range(0, masks.size()).parallel().forEach(i -> {
+          this.ctx.checkpoint();
+          Node node = candidates.get(masks.get(i));
+          unique[i] = node.left.partition.productIsUnique(node.right.partition, this.scratch.get());
+        });
+        level = new LinkedHashMap<>();
+        for (int i = 0; i < unique.length; i++) {
+          if (unique[i]) {
+            keys.add(this.names(masks.get(i)));
+          } else {
+            level.put(masks.get(i), candidates.get(masks.get(i)));
+          }
+        }
+      }
+    } catch (BudgetExceededException e) {
+      throw e.stoppedIn("KeyDiscovery", keys);
+    }
+    return keys;
+  }
+
+  /**
+   * Joins pairs of non-unique sets that differ only in their highest column,
+   * keeping a union only if all of its subsets one smaller are non-unique
+   */
+  private Map<Long, Node> generateNextLevel(Map<Long, Node> level) {
+    Map<Long, List<Long>> blocks = new HashMap<>();
+    for (long x : level.keySet()) {
+      blocks.computeIfAbsent(x & ~Long.highestOneBit(x), k -> new ArrayList<>()).add(x);
+    }
+    Map<Long, Node> next = new LinkedHashMap<>();
+    for (List<Long> block : blocks.values()) {
+      for (int i = 0; i < block.size(); i++) {
+        for (int j = i + 1; j < block.size(); j++) {
+          long x = block.get(i) | block.get(j);
+          boolean allSubsets = true;
+          for (long bits = x; bits != 0 && allSubsets; bits &= bits - 1) {
+            allSubsets = level.containsKey(x & ~Long.lowestOneBit(bits));
+          }
+          if (allSubsets) {
+            next.put(x, new Node(level.get(block.get(i)), level.get(block.get(j))));
+          }
+        }
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Computes, in parallel, the partitions of every parent of the candidates
+   * that does not have one yet, and lets go of the grandparents
+   */
+  private void materialize(Iterable<Node> candidates) {
+    Set<Node> parents = new HashSet<>();
+    for (Node node : candidates) {
+      parents.add(node.left);
+      parents.add(node.right);
+    }
+    List<Node> pending = parents.stream().filter(p -> p.partition == null).collect(Collectors.toList());
+    pending.parallelStream().forEach(p -> {
+      this.ctx.checkpoint();
+      p.partition = p.left.partition.product(p.right.partition, this.scratch.get());
+    });
+    for (Node p : pending) {
+      p.left = null;
+      p.right = null;
+    }
+  }
+
+  private Set<String> names(long mask) {
+    Set<String> names = new TreeSet<>();
+    for (long bits = mask; bits != 0; bits &= bits - 1) {
+      names.add(this.table.column(Long.numberOfTrailingZeros(bits)));
+    }
+    return names;
+  }
+}
@@ -0,0 +1,184 @@
+import java.util.Set;
+
+/**
+ * The attribute closure of every subset of a relation, computed with shared
+ * work.
+ *
+ * Subsets are visited in increasing bitmask order, so every immediate subset
+ * Y\{b} of Y comes before Y. Since X subset of Y implies X+ subset of Y+, the
+ * closure of Y starts from the union of the closures of its immediate
+ * subsets instead of from Y itself, and it is done at once when
+ *
+ * - one of those closures already contains the missing attribute b, since
+ *   then Y+ = (Y\{b})+, or
+ * - the union is already the whole relation.
+ *
+ * Only the remaining subsets run the FD fixpoint loop, and they start close
+ * to their result. Closures are kept in one int array indexed by subset
+ * bitmask, so relations of up to 30 attributes are supported (2^n ints).
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class LatticeClosure {
+
+  /** The largest relation whose closures fit in one array */
+  public static final int MAX_ATTRIBUTES = 30;
+
+  private final AttributeIndex index;
+  private final int[] closures;
+  private final long fixpoints;
+  private final long iterations;
+
+  private LatticeClosure(AttributeIndex index, int[] closures, long fixpoints, long iterations) {
+    this.index = index;
+    this.closures = closures;
+    this.fixpoints = fixpoints;
+    this.iterations = iterations;
+  }
+
+  /**
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set over the relation
+   * @return the closure of every subset of rel
+   */
+  public static LatticeClosure compute(Set<String> rel, FDSet fdset) {
+    return compute(AttributeIndex.of(rel, fdset), fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * @param index the attributes, at most MAX_ATTRIBUTES
+   * @param fdset the FDs, over attributes of the index
+   * @param ctx   the limits of the run
+   * @return the closure of every subset of the index's attributes
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static LatticeClosure compute(AttributeIndex index, FDSet fdset, ExecutionContext ctx) {
+    int n = index.size();
+    if (n > MAX_ATTRIBUTES) {
+      throw new IllegalArgumentException("At most " + MAX_ATTRIBUTES + " attributes are supported, not " + n + ".");
+    }
+    ctx.checkPowerSet(n);
+    return compute(index, fdset, ctx, new int[1 << n]);
+  }
+
+  /**
+   * Computes the closures into the given array, so that the caller still has
+   * the ones computed so far when a limit is hit. Those are a prefix of the
+   * array in bitmask order; the entries after it stay 0.
+   *
+   * @param index    the attributes, at most MAX_ATTRIBUTES
+   * @param fdset    the FDs, over attributes of the index
+   * @param ctx      the limits of the run
+   * @param closures an array of 2^n zeros to fill
+   * @return the closure of every subset of the index's attributes
+   * @throws BudgetExceededException if a limit is hit
+   */
+  static LatticeClosure compute(AttributeIndex index, FDSet fdset, ExecutionContext ctx, int[] closures) {
+    int n = index.size();
+    if (n > MAX_ATTRIBUTES || closures.length != 1 << n) {
+      throw new IllegalArgumentException("Expected 2^" + n + " closures, not " + closures.length + ".");
+    }
+    ctx.checkPowerSet(n);
+    int[] lhs = new int[fdset.size()];
+    int[] rhs = new int[fdset.size()];
+    int f = 0;
+    for (FD fd : fdset) {
+      lhs[f] = (int) index.mask(fd.left());
+      rhs[f] = (int) index.mask(fd.right());
+      f++;
+    }
+    ctx.charge(1L << n);
+
+    int full = (int) index.fullMask();
+    long fixpoints = 0;
+    long iterations = 0;
+    for (int y = 0; y < closures.length; y++) {
+      if ((y & 0xfff) == 0) {
+        ctx.checkpoint();
+      }
+      int seed = y;
+      int same = -1;
+      for (int bits = y; bits != 0; bits &= bits - 1) {
+        int b = Integer.lowestOneBit(bits);
+        int sub = closures[y & ~b];
+        if ((sub & b) != 0) {
+          same = sub;
+          break;
+        }
+        seed |= sub;
+      }
+      if (same >= 0 || seed == full) {
+        closures[y] = (same >= 0) ? same : full;
+        continue;
+      }
+      fixpoints++;
+      int x = seed;
+      int before;
+      do {
+        before = x;
+        iterations++;
+        for (int i = 0; i < lhs.length; i++) {
+          if ((lhs[i] & ~x) == 0) {
+            x |= rhs[i];
+          }
+        }
+      } while (x != before);
+      closures[y] = x;
+    }
+    return new LatticeClosure(index, closures, fixpoints, iterations);
+  }
+
+  /**
+   * @return the attributes and their bit positions
+   */
+  public AttributeIndex index() {
+    return this.index;
+  }
+
+  /**
+   * @param mask a subset as a bitmask of the index
+   * @return the closure of the subset as a bitmask
+   */
+  public int closure(int mask) {
+    return this.closures[mask];
+  }
+
+  /**
+   * @param attrs a subset of the relation
+   * @return its closure
+   */
+  public Set<String> closure(Set<String> attrs) {
+    return this.index.decode(this.closures[(int) this.index.mask(attrs)]);
+  }
+
+  /**
+   * @param mask a subset as a bitmask of the index
+   * @return true if the subset determines the whole relation
+   */
+  public boolean isSuperkey(int mask) {
+    return this.closures[mask] == (int) this.index.fullMask();
+  }
+
+  /**
+   * @return the number of subsets, 2^n
+   */
+  public int size() {
+    return this.closures.length;
+  }
+
+  /**
+   * @return how many subsets needed the FD fixpoint loop; the others were
+   *         settled from their immediate subsets alone
+   */
+  public long fixpoints() {
+    return this.fixpoints;
+  }
+
+  /**
+   * @return how many passes over the FDs the fixpoint loops made in total
+   */
+  public long iterations() {
+    return this.iterations;
+  }
+}
@@ -0,0 +1,113 @@
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class represents a multivalued dependency X -->> Y: whenever two tuples
+ * agree on X, swapping their Y values gives two tuples that are also in the
+ * relation. Every FD X --> Y is also an MVD X -->> Y, but MVDs can express
+ * repeating groups that no FD can.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public class MVD implements Comparable<MVD> {
+
+  private final Set<String> left;
+  private final Set<String> right;
+
+  /**
+   * Creation of a multivalued dependency
+   *
+   * @param left  An attribute set on the left
+   * @param right An attribute set on the right
+   */
+  public MVD(Set<String> left, Set<String> right) {
+    this.left = new TreeSet<>(left);
+    this.right = new TreeSet<>(right);
+  }
+
+  /**
+   * @return the attribute set on the left hand side of the MVD
+   */
+  public Set<String> getLeft() {
+    return new TreeSet<>(this.left);
+  }
+
+  /**
+   * @return the attribute set on the right hand side of the MVD
+   */
+  public Set<String> getRight() {
+    return new TreeSet<>(this.right);
+  }
+
+  /**
+   * @return the attribute set on the left, without a copy (not to be modified)
+   */
+  Set<String> left() {
+    return this.left;
+  }
+
+  /**
+   * @return the attribute set on the right, without a copy (not to be modified)
+   */
+  Set<String> right() {
+    return this.right;
+  }
+
+  /**
+   * An MVD X -->> Y is trivial in a relation R if Y is a subset of X or X and Y
+   * together make up all of R
+   *
+   * @param rel A relation (as an attribute set)
+   * @return true if the MVD holds in every instance of rel
+   */
+  public boolean isTrivial(Set<String> rel) {
+    Set<String> union = new TreeSet<>(this.left);
+    union.addAll(this.right);
+    return this.left.containsAll(this.right) || union.containsAll(rel);
+  }
+
+  /**
+   * Tests whether two MVDs are equal
+   */
+  @Override
+  public boolean equals(Object other) {
+    return (other instanceof MVD) && 0 == this.compareTo((MVD) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.left.hashCode() + this.right.hashCode();
+  }
+
+  /**
+   * @return a string representation of this MVD, like FD's with -->>
+   */
+  @Override
+  public String toString() {
+    return new FD(this.left, this.right).toString().replace(" --> ", " -->> ");
+  }
+
+  /**
+   * Compares two MVDs like FDs: by left size, then left, then right
+   *
+   * @param other another MVD
+   * @return a negative number, zero or a positive number
+   */
+  @Override
+  public int compareTo(MVD other) {
+    int diff = this.left.size() - other.left.size();
+    if (diff != 0) {
+      return diff;
+    }
+    diff = this.left.toString().compareTo(other.left.toString());
+    if (diff != 0) {
+      return diff;
+    }
+    diff = this.right.size() - other.right.size();
+    if (diff != 0) {
+      return diff;
+    }
+    return this.right.toString().compareTo(other.right.toString());
+  }
+}
@@ -14,5 +14,16 @@ public class Main {
         FD s2 = new FD(Arrays.asList("B"), Arrays.asList("C")); // B --> C
         FDSet fdsetS = new FDSet(s1, s2);
         System.out.println("Final BCNF Schemas: " + Normalizer.BCNFDecompose(S, fdsetS) +"\n"+".".repeat(250) + "\n\n");
+
+        Set<String> T = new HashSet<>(Arrays.asList("A", "B", "C", "D", "E")); // Relation T(A,B,C,D,E)
+        FD t1 = new FD(Arrays.asList("D"), Arrays.asList("E")); // D --> E
+        FD t2 = new FD(Arrays.asList("C", "E"), Arrays.asList("A")); // CE --> A
+        FDSet fdsetT = new FDSet(t1, t2);
+        // CD --> A holds in ABCD though no given FD says so, so 4NF must split ABCD like BCNF does
+        Set<Set<String>> schemasT = Normalizer.decompose4NF(T, fdsetT, new ArrayList<>());
+        System.out.println("Final 4NF Schemas: " + schemasT + "\n" + ".".repeat(250) + "\n\n");
+        if (!schemasT.equals(Normalizer.BCNFDecompose(T, fdsetT))) {
+            throw new AssertionError("4NF decomposition of T is not in BCNF: " + schemasT);
+        }
     }
 }
\ No newline at end of file
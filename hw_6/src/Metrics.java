@@ -0,0 +1,226 @@
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Process-wide counters for the closure and normalization engines, mirrored as
+ * JDK Flight Recorder events. Collection is off by default and is switched on
+ * with -Dfd.metrics=true or setEnabled(true). While off, every instrumentation
+ * point costs a single read of a volatile boolean.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class Metrics {
+
+  /**
+   * The quantities being tracked. Everything is a running sum except
+   * MAX_RECURSION_DEPTH, which is a running maximum.
+   */
+  public enum Counter {
+    /** calls to FDUtil.fdSetClosure */
+    CLOSURE_CALLS,
+    /** passes of the fixed-point loop in FDUtil.fdSetClosure */
+    CLOSURE_ITERATIONS,
+    /** FDs produced by the trivial/augment/transitive rules */
+    FDS_GENERATED,
+    /** generated FDs that were already in the closure */
+    FDS_DEDUPLICATED,
+    /** calls to FDUtil.powerSet */
+    POWER_SET_CALLS,
+    /** subsets produced by FDUtil.powerSet */
+    POWER_SET_SUBSETS,
+    /** subsets whose attribute closure was found while searching for superkeys */
+    ATTRIBUTE_CLOSURES,
+    /**
+     * those closures that ran the fixed-point loop; LatticeClosure settles the
+     * others from the closures of their immediate subsets
+     */
+    ATTRIBUTE_CLOSURE_FIXPOINTS,
+    /** passes of the fixed-point loop of those attribute closures */
+    ATTRIBUTE_CLOSURE_ITERATIONS,
+    /** calls to Normalizer.BCNFDecompose, recursive ones included */
+    DECOMPOSE_CALLS,
+    /** deepest recursion reached by Normalizer.BCNFDecompose */
+    MAX_RECURSION_DEPTH,
+    /** time spent in FDUtil.fdSetClosure */
+    CLOSURE_NANOS,
+    /** time spent in FDUtil.powerSet */
+    POWER_SET_NANOS,
+    /** time spent in Normalizer.findSuperkeys */
+    SUPERKEY_NANOS,
+    /** time spent in top-level calls to Normalizer.BCNFDecompose */
+    DECOMPOSE_NANOS
+  }
+
+  private static volatile boolean enabled = Boolean.getBoolean("fd.metrics");
+  private static final LongAdder[] SUMS = new LongAdder[Counter.values().length];
+  private static final LongAccumulator MAX_DEPTH = new LongAccumulator(Math::max, 0);
+
+  static {
+    for (int i = 0; i < SUMS.length; i++) {
+      SUMS[i] = new LongAdder();
+    }
+  }
+
+  private Metrics() {
+  }
+
+  /**
+   * @return true if counters are being collected and events emitted
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Switches collection on or off. Counters keep their values.
+   *
+   * @param on whether to collect
+   */
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  /**
+   * Adds to a counter. Callers check isEnabled() first.
+   *
+   * @param counter the counter to add to
+   * @param amount  the amount to add
+   */
+  static void add(Counter counter, long amount) {
+    if (counter == Counter.MAX_RECURSION_DEPTH) {
+      MAX_DEPTH.accumulate(amount);
+    } else {
+      SUMS[counter.ordinal()].add(amount);
+    }
+  }
+
+  /**
+   * Resets every counter to zero
+   */
+  public static void reset() {
+    for (LongAdder sum : SUMS) {
+      sum.reset();
+    }
+    MAX_DEPTH.reset();
+  }
+
+  /**
+   * Takes a snapshot of all counters. Counters updated concurrently with the
+   * snapshot may or may not be included.
+   *
+   * @return the current value of every counter
+   */
+  public static Snapshot snapshot() {
+    Map<Counter, Long> values = new EnumMap<>(Counter.class);
+    for (Counter counter : Counter.values()) {
+      values.put(counter, counter == Counter.MAX_RECURSION_DEPTH ? MAX_DEPTH.get() : SUMS[counter.ordinal()].sum());
+    }
+    return new Snapshot(values);
+  }
+
+  /**
+   * An immutable copy of the counters at one point in time
+   */
+  public static final class Snapshot {
+    private final Map<Counter, Long> values;
+
+    private Snapshot(Map<Counter, Long> values) {
+      this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * @param counter a counter
+     * @return the value of the counter when the snapshot was taken
+     */
+    public long get(Counter counter) {
+      return this.values.get(counter);
+    }
+
+    /**
+     * @return every counter and its value
+     */
+    public Map<Counter, Long> asMap() {
+      return this.values;
+    }
+
+    /**
+     * @return one "COUNTER = value" line per counter
+     */
+    @Override
+    public String toString() {
+      StringBuilder str = new StringBuilder();
+      for (Map.Entry<Counter, Long> entry : this.values.entrySet()) {
+        str.append(entry.getKey()).append(" = ").append(entry.getValue()).append("\n");
+      }
+      return str.toString();
+    }
+  }
+
+  /**
+   * Emitted once per call to FDUtil.fdSetClosure
+   */
+  @Name("fd.Closure")
+  @Label("FD Set Closure")
+  @Category("Normalization")
+  static final class ClosureEvent extends Event {
+    @Label("Input FDs")
+    int inputFds;
+
+    @Label("Closure FDs")
+    int closureFds;
+
+    @Label("Iterations")
+    int iterations;
+
+    @Label("Attributes")
+    int attributes;
+  }
+
+  /**
+   * Emitted once per call to Normalizer.findSuperkeys
+   */
+  @Name("fd.Superkeys")
+  @Label("Superkey Search")
+  @Category("Normalization")
+  static final class SuperkeyEvent extends Event {
+    @Label("Relation Size")
+    int relationSize;
+
+    @Label("Subsets Examined")
+    long subsets;
+
+    @Label("Superkeys")
+    int superkeys;
+  }
+
+  /**
+   * Emitted once per (possibly recursive) call to Normalizer.BCNFDecompose
+   */
+  @Name("fd.Decompose")
+  @Label("BCNF Decomposition Step")
+  @Category("Normalization")
+  @Description("One level of the recursive BCNF decomposition")
+  static final class DecomposeEvent extends Event {
+    @Label("Relation Size")
+    int relationSize;
+
+    @Label("FDs")
+    int fds;
+
+    @Label("Recursion Depth")
+    int depth;
+
+    @Label("Already In BCNF")
+    boolean inBCNF;
+  }
+}
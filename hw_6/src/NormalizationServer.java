@@ -0,0 +1,420 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A long-running HTTP server on localhost that answers normalization
+ * questions, so that short-lived tools do not each pay for JVM warm-up and
+ * cold caches.
+ *
+ * Every request is a POST whose body is a workload in the format of FDFormat:
+ * an optional "R: A,B,C" line followed by one FD per line. The endpoints are
+ *
+ * /closure          the closure of the FD set, or with ?attrs=A,B the
+ *                   closure of those attributes
+ * /keys             the candidate keys, one per line
+ * /bcnf/check       true or false
+ * /bcnf/decompose   the BCNF schemas, one per line
+ * /implies?fd=A->B  true if the FD set implies the FD
+ *
+ * and GET /stats reports request counts, latency percentiles, throughput and
+ * cache statistics. Requests are served on virtual threads where the JVM has
+ * them (see BatchNormalizer.newExecutor). Concurrent requests for the same
+ * input share one computation, and answers are kept in an LRU cache shared by
+ * all clients; with -store, key and BCNF results also go through a
+ * ResultStore and so survive restarts. Each computation runs under a
+ * deadline, and a request that misses it gets 503.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public class NormalizationServer {
+
+  private static final String[] ENDPOINTS = { "/closure", "/keys", "/bcnf/check", "/bcnf/decompose", "/implies" };
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final int cacheSize;
+  private final long timeoutMillis;
+  private final ResultStore store;
+  private final Map<String, String> cache;
+  private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Stats> stats = new LinkedHashMap<>();
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong computed = new AtomicLong();
+  private final long startNanos = System.nanoTime();
+
+  /**
+   * @param port          the port to listen on (0 for any free port)
+   * @param cacheSize     how many answers to keep
+   * @param timeoutMillis how long a single computation may run
+   * @param store         a store for key and BCNF results, or null
+   * @throws IOException if the port cannot be bound
+   */
+  public NormalizationServer(int port, int cacheSize, long timeoutMillis, ResultStore store) throws IOException {
+    if (cacheSize < 0 || timeoutMillis < 1) {
+      throw new IllegalArgumentException("Cache size must not be negative and the timeout must be positive.");
+    }
+    this.cacheSize = cacheSize;
+    this.timeoutMillis = timeoutMillis;
+    this.store = store;
+    this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return this.size() > NormalizationServer.this.cacheSize;
+      }
+    };
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    this.executor = BatchNormalizer.newExecutor();
+    this.server.setExecutor(this.executor);
+    for (String endpoint : ENDPOINTS) {
+      this.stats.put(endpoint, new Stats());
+      this.server.createContext(endpoint, exchange -> this.handle(endpoint, exchange));
+    }
+    this.server.createContext("/stats", exchange -> {
+      byte[] body = this.stats().getBytes(StandardCharsets.UTF_8);
+      respond(exchange, 200, body);
+    });
+  }
+
+  /**
+   * Usage: NormalizationServer [-port n] [-cache n] [-timeout ms] [-store file]
+   *
+   * @param args command line arguments
+   * @throws IOException if the port cannot be bound or the store opened
+   */
+  public static void main(String[] args) throws IOException {
+    int port = 8455;
+    int cacheSize = 10_000;
+    long timeout = 30_000;
+    ResultStore store = null;
+    for (int i = 0; i < args.length; i++) {
+      if (i + 1 == args.length) {
+        System.err.println("Usage: NormalizationServer [-port n] [-cache n] [-timeout ms] [-store file]");
+        System.exit(2);
+      }
+      switch (args[i]) {
+        case "-port":
+          port = Integer.parseInt(args[++i]);
+          break;
+        case "-cache":
+          cacheSize = Integer.parseInt(args[++i]);
+          break;
+        case "-timeout":
+          timeout = Long.parseLong(args[++i]);
+          break;
+        case "-store":
+          store = ResultStore.open(Paths.get(args[++i]));
+          break;
+        default:
+          System.err.println("Unknown option " + args[i]);
+          System.exit(2);
+      }
+    }
+    NormalizationServer server = new NormalizationServer(port, cacheSize, timeout, store);
+    server.start();
+    System.out.println("Listening on http://localhost:" + server.getPort());
+  }
+
+  /**
+   * Starts accepting requests
+   */
+  public void start() {
+    this.server.start();
+  }
+
+  /**
+   * Stops the server, waiting up to the given time for requests in progress
+   *
+   * @param delaySeconds how long to wait
+   */
+  public void stop(int delaySeconds) {
+    this.server.stop(delaySeconds);
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * @return the port the server listens on
+   */
+  public int getPort() {
+    return this.server.getAddress().getPort();
+  }
+
+  private void handle(String endpoint, HttpExchange exchange) throws IOException {
+    long start = System.nanoTime();
+    int status = 200;
+    String answer;
+    try {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        status = 405;
+        answer = "Use POST with the FDs as the body.";
+      } else {
+        FDGenerator.Workload workload = FDFormat.readWorkload(new InputStreamReader(exchange.getRequestBody(),
+            StandardCharsets.UTF_8));
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        answer = this.answer(endpoint, query, workload.getRelation(), workload.getFDSet());
+      }
+    } catch (IllegalArgumentException e) {
+      status = 400;
+      answer = e.getMessage();
+    } catch (BudgetExceededException e) {
+      status = 503;
+      answer = e.getMessage();
+    } catch (RuntimeException e) {
+      status = 500;
+      answer = e.toString();
+    }
+    respond(exchange, status, (answer + "\n").getBytes(StandardCharsets.UTF_8));
+    this.stats.get(endpoint).record(System.nanoTime() - start, status == 200);
+  }
+
+  /**
+   * Answers from the cache, by joining a computation of the same input that
+   * is already running, or by computing
+   */
+  private String answer(String endpoint, Map<String, String> query, Set<String> rel, FDSet fdset) {
+    String key = endpoint + "?" + new TreeMap<>(query) + "\n" + new TreeSet<>(rel) + "\n"
+        + fdset.toString(false);
+    synchronized (this.cache) {
+      String cached = this.cache.get(key);
+      if (cached != null) {
+        this.cacheHits.incrementAndGet();
+        return cached;
+      }
+    }
+    CompletableFuture<String> mine = new CompletableFuture<>();
+    CompletableFuture<String> running = this.inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      this.coalesced.incrementAndGet();
+      return join(running);
+    }
+    try {
+      this.computed.incrementAndGet();
+      String answer = this.compute(endpoint, query, rel, fdset);
+      synchronized (this.cache) {
+        this.cache.put(key, answer);
+      }
+      mine.complete(answer);
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+    } finally {
+      this.inFlight.remove(key, mine);
+    }
+    return join(mine);
+  }
+
+  private String compute(String endpoint, Map<String, String> query, Set<String> rel, FDSet fdset) {
+    ExecutionContext ctx = new ExecutionContext().timeout(this.timeoutMillis);
+    switch (endpoint) {
+      case "/closure":
+        if (query.containsKey("attrs")) {
+          return String.join(",", FDUtil.attributeClosure(attributes(query.get("attrs")), fdset));
+        }
+        return lines(FDUtil.fdSetClosure(fdset, ctx));
+      case "/keys":
+        return schemas(this.candidateKeys(rel, fdset, ctx));
+      case "/bcnf/check":
+        return Boolean.toString(this.isBCNF(rel, fdset, ctx));
+      case "/bcnf/decompose":
+        return schemas(this.decompose(rel, fdset, ctx));
+      case "/implies":
+        if (!query.containsKey("fd")) {
+          throw new IllegalArgumentException("Give the FD to test as ?fd=A,B->C.");
+        }
+        return Boolean.toString(FDUtil.implies(fdset, FDFormat.parseFD(query.get("fd"))));
+      default:
+        throw new IllegalArgumentException("Unknown endpoint " + endpoint + ".");
+    }
+  }
+
+  private Set<Set<String>> candidateKeys(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+    if (this.store == null) {
+      return Normalizer.findCandidateKeys(rel, fdset, ctx);
+    }
+    try {
+      return this.store.findCandidateKeys(rel, fdset, ctx);
+    } catch (IOException e) {
+      throw new IllegalStateException("The result store failed.", e);
+    }
+  }
+
+  private boolean isBCNF(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+    if (this.store == null) {
+      return Normalizer.isBCNF(rel, fdset, ctx);
+    }
+    try {
+      return this.store.isBCNF(rel, fdset, ctx);
+    } catch (IOException e) {
+      throw new IllegalStateException("The result store failed.", e);
+    }
+  }
+
+  private Set<Set<String>> decompose(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+    if (this.store == null) {
+      return Normalizer.BCNFDecompose(rel, fdset, ctx, null);
+    }
+    try {
+      return this.store.BCNFDecompose(rel, fdset, ctx);
+    } catch (IOException e) {
+      throw new IllegalStateException("The result store failed.", e);
+    }
+  }
+
+  /**
+   * @return the stats as "name value" lines
+   */
+  public String stats() {
+    double seconds = (System.nanoTime() - this.startNanos) / 1e9;
+    StringBuilder str = new StringBuilder();
+    long total = 0;
+    for (Map.Entry<String, Stats> entry : this.stats.entrySet()) {
+      Stats s = entry.getValue();
+      long n = s.count.get();
+      total += n;
+      str.append(entry.getKey()).append(" requests=").append(n).append(" errors=").append(s.errors.get());
+      if (n > 0) {
+        str.append(String.format(" mean_us=%.1f p50_us=%d p99_us=%d max_us=%d", s.totalNanos.get() / 1e3 / n,
+            s.percentile(0.50), s.percentile(0.99), s.maxNanos.get() / 1000));
+      }
+      str.append("\n");
+    }
+    int cached;
+    synchronized (this.cache) {
+      cached = this.cache.size();
+    }
+    str.append(String.format("uptime_s=%.1f requests=%d throughput_per_s=%.1f%n", seconds, total, total / seconds));
+    str.append("computed=").append(this.computed.get()).append(" cache_hits=").append(this.cacheHits.get())
+        .append(" coalesced=").append(this.coalesced.get()).append(" cached=").append(cached).append("\n");
+    if (this.store != null) {
+      str.append("store ").append(this.store.stats()).append("\n");
+    }
+    return str.toString();
+  }
+
+  private static String join(CompletableFuture<String> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BudgetExceededException(BudgetExceededException.Limit.CANCELLED, "Interrupted.");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static Map<String, String> query(String raw) {
+    Map<String, String> query = new HashMap<>();
+    if (raw == null || raw.isEmpty()) {
+      return query;
+    }
+    for (String pair : raw.split("&")) {
+      int eq = pair.indexOf('=');
+      String name = URLDecoder.decode((eq < 0) ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+      String value = (eq < 0) ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+      query.put(name, value);
+    }
+    return query;
+  }
+
+  private static Set<String> attributes(String list) {
+    Set<String> attrs = new TreeSet<>();
+    for (String attr : list.split(",")) {
+      if (!attr.trim().isEmpty()) {
+        attrs.add(attr.trim());
+      }
+    }
+    return attrs;
+  }
+
+  private static String lines(FDSet fdset) {
+    StringBuilder str = new StringBuilder();
+    try {
+      new FDWriter(str).writeLines(fdset.iterator());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return str.toString().trim();
+  }
+
+  private static String schemas(Set<Set<String>> schemas) {
+    List<String> sorted = new ArrayList<>();
+    for (Set<String> schema : schemas) {
+      sorted.add(String.join(",", new TreeSet<>(schema)));
+    }
+    sorted.sort(null);
+    return String.join("\n", sorted);
+  }
+
+  /**
+   * Request counts and a latency histogram with one bucket per power of two
+   * microseconds
+   */
+  private static final class Stats {
+    final AtomicLong count = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong totalNanos = new AtomicLong();
+    final AtomicLong maxNanos = new AtomicLong();
+    final AtomicLongArray buckets = new AtomicLongArray(64);
+
+    void record(long nanos, boolean ok) {
+      this.count.incrementAndGet();
+      if (!ok) {
+        this.errors.incrementAndGet();
+      }
+      this.totalNanos.addAndGet(nanos);
+      this.maxNanos.accumulateAndGet(nanos, Math::max);
+      this.buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(1, nanos / 1000)));
+    }
+
+    /**
+     * @return the upper end of the bucket holding the given fraction of
+     *         requests, in microseconds
+     */
+    long percentile(double fraction) {
+      long n = this.count.get();
+      long seen = 0;
+      for (int b = 0; b < 64; b++) {
+        seen += this.buckets.get(b);
+        if (seen >= Math.ceil(fraction * n)) {
+          return 1L << b;
+        }
+      }
+      return this.maxNanos.get() / 1000;
+    }
+  }
+}
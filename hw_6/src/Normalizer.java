@@ -1,3 +1,4 @@
+import java.io.PrintStream;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -10,6 +11,21 @@ import java.util.stream.Stream;
  */
 public class Normalizer {
 
+  /** Where BCNFDecompose narrates its steps, or null for silence */
+  private static volatile PrintStream log = System.out;
+
+  /**
+   * Redirects the step-by-step output of BCNFDecompose, which prints every
+   * schema with its candidate keys and the FD it is split on. Callers that
+   * only want this for some runs should pass the stream to BCNFDecompose
+   * instead.
+   *
+   * @param out where to print, or null to print nothing
+   */
+  public static void setLog(PrintStream out) {
+    log = out;
+  }
+
   /**
    * Performs BCNF decomposition
    * 
@@ -18,30 +34,106 @@ public class Normalizer {
    * @return a set of relations (as attribute sets) that are in BCNF
    */
   public static Set<Set<String>> BCNFDecompose(Set<String> rel, FDSet fdset) {
+    return BCNFDecompose(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Performs BCNF decomposition within the given limits
+   * 
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of the run, shared by every step
+   * @return a set of relations (as attribute sets) that are in BCNF
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static Set<Set<String>> BCNFDecompose(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+    return BCNFDecompose(rel, fdset, ctx, log);
+  }
+
+  /**
+   * Performs BCNF decomposition within the given limits, narrating to the
+   * given stream instead of the one set with setLog. Library callers that
+   * run decompositions concurrently pass null here rather than silencing
+   * every other user of the class with setLog.
+   * 
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of the run, shared by every step
+   * @param out   where to print the steps, or null to print nothing
+   * @return a set of relations (as attribute sets) that are in BCNF
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static Set<Set<String>> BCNFDecompose(Set<String> rel, FDSet fdset, ExecutionContext ctx,
+      PrintStream out) {
+    if (!Metrics.isEnabled()) {
+      return BCNFDecompose(rel, fdset, ctx, out, 0);
+    }
+    long start = System.nanoTime();
+    Set<Set<String>> schemas = BCNFDecompose(rel, fdset, ctx, out, 0);
+    Metrics.add(Metrics.Counter.DECOMPOSE_NANOS, System.nanoTime() - start);
+    return schemas;
+  }
+
+  /**
+   * One level of the recursive BCNF decomposition
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of the run
+   * @param out   where to print the steps, or null
+   * @param depth how many splits led to this relation
+   * @return a set of relations (as attribute sets) that are in BCNF
+   */
+  private static Set<Set<String>> BCNFDecompose(Set<String> rel, FDSet fdset, ExecutionContext ctx, PrintStream out,
+      int depth) {
+      Metrics.DecomposeEvent event = null;
+      if (Metrics.isEnabled()) {
+          Metrics.add(Metrics.Counter.DECOMPOSE_CALLS, 1);
+          Metrics.add(Metrics.Counter.MAX_RECURSION_DEPTH, depth);
+          event = new Metrics.DecomposeEvent();
+          event.begin();
+          event.relationSize = rel.size();
+          event.fds = fdset.size();
+          event.depth = depth;
+      }
+
       // print out some helpful info for Professor Chiu!
-      System.out.println("Current schema = " + rel.toString());
+      if (out != null) {
+          out.println("Current schema = " + rel.toString());
+      }
+
+      // find the candidate keys; a superkey is any superset of one of them
+      SetTrie<Set<String>> keys = candidateKeys(rel, fdset, ctx);
+      if (out != null) {
+          out.println("Current schema's candidate keys = " + keys.subsetsOf(rel));
+      }
 
       // check to see if we have hit our base case (schema is already in bcnf)
-      if (isBCNF(rel, fdset)){
-          System.out.println("Current schema is in BCNF\n\n");
+      if (isBCNF(fdset, keys)){
+          if (out != null) {
+              out.println("Current schema is in BCNF\n\n");
+          }
+          if (event != null) {
+              event.inBCNF = true;
+              event.commit();
+          }
           return Collections.singleton(rel);
       }
     // Identify a nontrivial FD that violates BCNF. Split the relation's
     // attributes using that FD, as seen in class.
 
-      // find all superkeys
-      Set<Set<String>> superKeys = findSuperkeys(rel, fdset);
-      System.out.println("Current schema's superkeys = " + superKeys);
       // find a fd that violates bcnf
       FD violatingFD = fdset
               .getSet()
               .stream()
-              .filter(fd -> !fd.getLeft().containsAll(fd.getRight()) && !superKeys.contains(fd.getLeft()))
+              .filter(fd -> !fd.getLeft().containsAll(fd.getRight()) && !keys.containsSubsetOf(fd.left()))
               .findFirst()
               //the following error should only throw if something has gone horribly wrong.
               .orElseThrow(() -> new RuntimeException("BCNF check gave false neg. No violating dependencies found."));
 
-      System.out.println("\uD83E\uDE93".repeat(5) + " Splitting on " + violatingFD + "\uD83E\uDE93".repeat(5));
+      if (out != null) {
+          out.println("\uD83E\uDE93".repeat(5) + " Splitting on " + violatingFD + "\uD83E\uDE93".repeat(5));
+      }
 
     // Redistribute the FDs in the closure of fdset to the two new
     // relations (r1 and r2)
@@ -61,7 +153,7 @@ public class Normalizer {
       // r2) relation. If so, then the FD gets added to the r1's (or r2's) FD
       // set. If the union is not a subset of either new relation, then the FD is
       // discarded
-      FDSet fplus = FDUtil.fdSetClosure(fdset);
+      FDSet fplus = FDUtil.fdSetClosure(fdset, ctx);
       FDSet f1 = new FDSet();
       FDSet f2 = new FDSet();
       for (FD fd : fplus) {
@@ -74,10 +166,229 @@ public class Normalizer {
               f2.add(fd);
           }
       }
-      System.out.println("Left schema = " + r1 + "\nLeft schema's superkeys = " + findSuperkeys(r1, f1));
-      System.out.println("Right schema = " + r2 + "\nRight schema's superkeys = " + findSuperkeys(r2, f2) + "\n\n");
+      if (out != null) {
+          out.println("Left schema = " + r1);
+          out.println("Right schema = " + r2 + "\n\n");
+      }
+      if (event != null) {
+          event.commit();
+      }
       // recurse on each subproblem:
-      return Stream.concat(BCNFDecompose(r1, f1).stream(), BCNFDecompose(r2, f2).stream()).collect(Collectors.toSet());
+      return Stream.concat(BCNFDecompose(r1, f1, ctx, out, depth + 1).stream(),
+              BCNFDecompose(r2, f2, ctx, out, depth + 1).stream())
+              .collect(Collectors.toSet());
+  }
+
+  /**
+   * Performs 4NF decomposition
+   * 
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param mvds  multivalued dependencies
+   * @return a set of relations (as attribute sets) that are in 4NF
+   */
+  public static Set<Set<String>> decompose4NF(Set<String> rel, FDSet fdset, Collection<MVD> mvds) {
+    return decompose4NF(rel, fdset, mvds, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Performs 4NF decomposition within the given limits. A relation is in 4NF
+   * iff the left-hand side of every nontrivial MVD (FDs included) is a super
+   * key.
+   * 
+   * Everything is decided with dependency bases over the original relation
+   * (see DependencyBasis) instead of projecting F+ onto each new schema, so a
+   * step costs polynomial time. For a schema S and X inside S, every block of
+   * the basis of X cut down to S gives an MVD that holds in S. The left-hand
+   * sides of the given dependencies, cut down to S, are tried first. On the
+   * original relation they are enough, but a smaller S can violate 4NF on any
+   * of its subsets, so when they find nothing every X inside S made of
+   * left-hand side attributes is tried, skipping supersets of the super keys
+   * found so far. Every resulting schema is therefore in BCNF as well, but
+   * that last check can take time exponential in the width of a schema.
+   * 
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set
+   * @param mvds  multivalued dependencies
+   * @param ctx   the limits of the run, shared by every step
+   * @return a set of relations (as attribute sets) that are in 4NF
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static Set<Set<String>> decompose4NF(Set<String> rel, FDSet fdset, Collection<MVD> mvds,
+      ExecutionContext ctx) {
+    DependencyBasis basis = DependencyBasis.of(rel, fdset, mvds);
+    long[] lefts = leftHandSides(basis.index(), fdset, mvds);
+    Set<Set<String>> schemas = new HashSet<>();
+    decompose4NF(basis.index().fullMask(), basis, lefts, ctx, schemas);
+    return schemas;
+  }
+
+  /**
+   * Tests whether the given relation is in 4NF
+   * 
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set
+   * @param mvds  multivalued dependencies
+   * @return true if the relation is in 4NF with respect to the dependencies
+   */
+  public static boolean is4NF(Set<String> rel, FDSet fdset, Collection<MVD> mvds) {
+    DependencyBasis basis = DependencyBasis.of(rel, fdset, mvds);
+    long[] lefts = leftHandSides(basis.index(), fdset, mvds);
+    return find4NFViolation(basis.index().fullMask(), basis, lefts, ExecutionContext.unbounded()) == null;
+  }
+
+  /**
+   * One level of the recursive 4NF decomposition
+   *
+   * @param rel     the current schema as a bitmask
+   * @param basis   the dependency bases of the original relation
+   * @param lefts   the left-hand sides of the given dependencies
+   * @param ctx     the limits of the run
+   * @param schemas where to add the schemas that are in 4NF
+   */
+  private static void decompose4NF(long rel, DependencyBasis basis, long[] lefts, ExecutionContext ctx,
+      Set<Set<String>> schemas) {
+      AttributeIndex index = basis.index();
+      final PrintStream out = log;
+      if (out != null) {
+          out.println("Current schema = " + index.decode(rel));
+      }
+      long[] violation = find4NFViolation(rel, basis, lefts, ctx);
+      if (violation == null) {
+          if (out != null) {
+              out.println("Current schema is in 4NF\n\n");
+          }
+          schemas.add(index.decode(rel));
+          return;
+      }
+      long x = violation[0];
+      long y = violation[1];
+      if (out != null) {
+          out.println("\uD83E\uDE93".repeat(5) + " Splitting on " + new MVD(index.decode(x), index.decode(y))
+                  + "\uD83E\uDE93".repeat(5));
+      }
+      // X -->> Y splits the schema into XY and everything but Y
+      long r1 = x | y;
+      long r2 = rel & ~y;
+      if (out != null) {
+          out.println("Left schema = " + index.decode(r1));
+          out.println("Right schema = " + index.decode(r2) + "\n\n");
+      }
+      decompose4NF(r1, basis, lefts, ctx, schemas);
+      decompose4NF(r2, basis, lefts, ctx, schemas);
+  }
+
+  /**
+   * @return {X, Y} for a nontrivial X -->> Y in rel whose X is not a super key
+   *         of rel, or null if rel is in 4NF. Y is everything else that X
+   *         determines in rel when that is not empty. BCNFDecompose splits on
+   *         the right-hand side of the violating FD instead, so the two can
+   *         give different schemas: for ABCD with A --> B and B --> C, this
+   *         splits off ABC first and ends with [AB, BC, AD], while
+   *         BCNFDecompose gives [AB, AC, AD].
+   */
+  private static long[] find4NFViolation(long rel, DependencyBasis basis, long[] lefts, ExecutionContext ctx) {
+      for (long left : lefts) {
+          ctx.checkpoint();
+          long x = left & rel;
+          long[] violation = violationAt(x, rel, basis, basis.basis(x));
+          if (violation != null) {
+              return violation;
+          }
+      }
+      if (rel == basis.index().fullMask()) {
+          // on the relation they are given for, the dependencies themselves
+          // show every violation
+          return null;
+      }
+      // try every other subset, depth first. An attribute on no left-hand
+      // side neither adds to a closure nor splits a block, so if X plus it
+      // violates 4NF then X alone already does.
+      long candidates = 0L;
+      for (long left : lefts) {
+          candidates |= left;
+      }
+      long[] empty = basis.basis(0L);
+      long[] violation = violationAt(0L, rel, basis, empty);
+      if (violation != null || (basis.closure(0L, empty) & rel) == rel) {
+          return violation;
+      }
+      return searchSubsets(0L, empty, candidates & rel, rel, basis, new SetTrie<>(basis.index()), ctx);
+  }
+
+  /**
+   * Tries every subset of rel made of x and candidate attributes above x's
+   * highest one. A superset of a super key is a super key, so it cannot
+   * violate anything and is not searched.
+   *
+   * @param x          a subset of rel that is neither a super key nor a
+   *                   violation
+   * @param blocks     the blocks of the basis of x
+   * @param candidates the attributes that may be added
+   * @param superkeys  the super keys of rel found so far
+   * @return a violation, or null if there is none among those subsets
+   */
+  private static long[] searchSubsets(long x, long[] blocks, long candidates, long rel, DependencyBasis basis,
+      SetTrie<Long> superkeys, ExecutionContext ctx) {
+      long above = (x == 0L) ? candidates : candidates & (-Long.highestOneBit(x) << 1);
+      for (long bits = above; bits != 0; bits &= bits - 1) {
+          ctx.checkpoint();
+          long y = x | Long.lowestOneBit(bits);
+          if (superkeys.containsSubsetOf(y)) {
+              continue;
+          }
+          long[] next = basis.basis(y, blocks);
+          if ((basis.closure(y, next) & rel) == rel) {
+              superkeys.put(y, y);
+              continue;
+          }
+          long[] violation = violationAt(y, rel, basis, next);
+          if (violation == null) {
+              violation = searchSubsets(y, next, candidates, rel, basis, superkeys, ctx);
+          }
+          if (violation != null) {
+              return violation;
+          }
+      }
+      return null;
+  }
+
+  /**
+   * @param blocks the blocks of the basis of x
+   * @return {X, Y} for a nontrivial X -->> Y in rel if x is not a super key of
+   *         rel, or null
+   */
+  private static long[] violationAt(long x, long rel, DependencyBasis basis, long[] blocks) {
+      long rest = rel & ~x;
+      long determined = basis.closure(x, blocks) & rest;
+      if (determined == rest) {
+          // x is a super key of rel
+          return null;
+      }
+      for (long block : blocks) {
+          long piece = block & rest;
+          if (piece != 0 && piece != rest) {
+              return new long[] { x, (determined != 0L) ? determined : piece };
+          }
+      }
+      // every MVD with left-hand side x is trivial in rel
+      return null;
+  }
+
+  /**
+   * @return the distinct left-hand sides of the dependencies as bitmasks,
+   *         smallest first
+   */
+  private static long[] leftHandSides(AttributeIndex index, FDSet fdset, Collection<MVD> mvds) {
+    Set<Long> lefts = new TreeSet<>((a, b) -> (Long.bitCount(a) != Long.bitCount(b))
+        ? Integer.compare(Long.bitCount(a), Long.bitCount(b)) : Long.compareUnsigned(a, b));
+    for (FD fd : fdset) {
+      lefts.add(index.mask(fd.left()));
+    }
+    for (MVD mvd : mvds) {
+      lefts.add(index.mask(mvd.left()));
+    }
+    return lefts.stream().mapToLong(Long::longValue).toArray();
   }
 
   /**
@@ -89,16 +400,128 @@ public class Normalizer {
    * @return true if the relation is in BCNF with respect to the specified FD set
    */
   public static boolean isBCNF(Set<String> rel, FDSet fdset) {
-    Set<Set<String>> superKeys = findSuperkeys(rel, fdset);
+    return isBCNF(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Tests whether the given relation is in BCNF within the given limits. An
+   * FD's left-hand side is a superkey iff it contains a candidate key, so only
+   * the candidate keys are searched for.
+   * 
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of the run
+   * @return true if the relation is in BCNF with respect to the specified FD set
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static boolean isBCNF(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+    return isBCNF(fdset, candidateKeys(rel, fdset, ctx));
+  }
+
+  /**
+   * @param keys the candidate keys of the relation
+   * @return true if the left-hand side of every nontrivial FD contains a key
+   */
+  private static boolean isBCNF(FDSet fdset, SetTrie<Set<String>> keys) {
     // Test the BCNF criteria against every FD in fdset:
-    for (FD fd : fdset.getSet()) {
-        if (!fd.getLeft().containsAll(fd.getRight()) && !superKeys.contains(fd.getLeft())) {
+    for (FD fd : fdset) {
+        if (!fd.getLeft().containsAll(fd.getRight()) && !keys.containsSubsetOf(fd.left())) {
             return false;
         }
     }
     return true;
   }
 
+  /**
+   * This method returns the candidate keys, the minimal superkeys
+   * 
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set
+   * @return a set of candidate keys
+   */
+  public static Set<Set<String>> findCandidateKeys(Set<String> rel, FDSet fdset) {
+    return findCandidateKeys(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * This method returns the candidate keys, within the given limits. Every
+   * superkey contains one of them, so they stand in for the 2^n superkeys of
+   * findSuperkeys wherever only superkey membership is needed.
+   * 
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of the run
+   * @return a set of candidate keys
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static Set<Set<String>> findCandidateKeys(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+    return new HashSet<>(candidateKeys(rel, fdset, ctx).subsetsOf(rel));
+  }
+
+  /**
+   * Finds the candidate keys with the algorithm of Lucchesi and Osborn: reduce
+   * the whole relation to one key, then for every key K and FD X --> Y,
+   * X u (K - Y) is a superkey too, and unless it contains a key found so far
+   * it reduces to a new one. This takes polynomial time per key instead of a
+   * closure for every subset.
+   * 
+   * @return the candidate keys, each mapped to itself
+   */
+  private static SetTrie<Set<String>> candidateKeys(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
+      for (FD fd : fdset) {
+          if (!rel.containsAll(fd.left()) || !rel.containsAll(fd.right())) {
+              throw new IllegalArgumentException("Attributes in FDSet not present in relation.");
+          }
+      }
+      AttributeIndex index = new AttributeIndex(rel);
+      BatchClosure closure = BatchClosure.scalar(index, fdset);
+      long[] lhs = new long[fdset.size()];
+      long[] rhs = new long[fdset.size()];
+      int f = 0;
+      for (FD fd : fdset) {
+          lhs[f] = index.mask(fd.left());
+          rhs[f] = index.mask(fd.right());
+          f++;
+      }
+
+      SetTrie<Set<String>> keys = new SetTrie<>(index);
+      List<Long> found = new ArrayList<>();
+      try {
+          long first = reduceToKey(index.fullMask(), index.fullMask(), closure, ctx);
+          keys.put(first, index.decode(first));
+          found.add(first);
+          for (int k = 0; k < found.size(); k++) {
+              for (f = 0; f < lhs.length; f++) {
+                  ctx.checkpoint();
+                  long superkey = lhs[f] | (found.get(k) & ~rhs[f]);
+                  if (!keys.containsSubsetOf(superkey)) {
+                      long key = reduceToKey(superkey, index.fullMask(), closure, ctx);
+                      keys.put(key, index.decode(key));
+                      found.add(key);
+                  }
+              }
+          }
+      } catch (BudgetExceededException e) {
+          throw e.stoppedIn("findCandidateKeys", new HashSet<>(keys.subsetsOf(rel)));
+      }
+      return keys;
+  }
+
+  /**
+   * @return a minimal subset of the superkey that still determines full
+   */
+  private static long reduceToKey(long superkey, long full, BatchClosure closure, ExecutionContext ctx) {
+      long key = superkey;
+      for (long bits = superkey; bits != 0; bits &= bits - 1) {
+          long smaller = key & ~Long.lowestOneBit(bits);
+          if (closure.closure(smaller) == full) {
+              key = smaller;
+          }
+      }
+      ctx.charge(Long.bitCount(superkey));
+      return key;
+  }
+
   /**
    * This method returns a set of super keys
    * 
@@ -107,6 +530,21 @@ public class Normalizer {
    * @return a set of super keys
    */
   public static Set<Set<String>> findSuperkeys(Set<String> rel, FDSet fdset) {
+    return findSuperkeys(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * This method returns a set of super keys, within the given limits. If a
+   * limit is hit, the exception carries the superkeys found so far as its
+   * partial result.
+   * 
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of the run
+   * @return a set of super keys
+   * @throws BudgetExceededException if a limit is hit
+   */
+  public static Set<Set<String>> findSuperkeys(Set<String> rel, FDSet fdset, ExecutionContext ctx) {
       // First check to make sure that all attributes contained in the FDs are valid attributions in the relation.
       // Get a list of all attributes in the FDSet:
       Set<String> attrs = fdset
@@ -120,31 +558,80 @@ public class Normalizer {
         throw new IllegalArgumentException("Attributes in FDSet not present in relation.");
       }
 
+      final boolean metrics = Metrics.isEnabled();
+      final long start = metrics ? System.nanoTime() : 0;
+      Metrics.SuperkeyEvent event = metrics ? new Metrics.SuperkeyEvent() : null;
+      if (event != null) {
+          event.begin();
+      }
+      long subsets = 0;
+      long fixpoints = 0;
+      long iterations = 0;
+
       // make an empty set to store every superkey that we find:
       Set<Set<String>> superKeys = new HashSet<>();
       // this map will hold the closure of each subset of rel under fdset
       Set<String> canDetermine = new HashSet<>();
-      // for every subset of attributes in our relation
-
-      for (Set<String> relSubSet : FDUtil.powerSet(rel)) {
-          int startSize;
-          // reset the canDetermine map
-          canDetermine.clear();
-          canDetermine.addAll(relSubSet);
-          // do the a+ closure algorithm
-          do {
-              startSize = canDetermine.size();
-              for (FD fd : fdset) {
-                  if (canDetermine.containsAll(fd.getLeft())) {
-                      canDetermine.addAll(fd.getRight());
+      try {
+          ctx.checkPowerSet(rel.size());
+          if (rel.size() <= LatticeClosure.MAX_ATTRIBUTES) {
+              // share work between closures of related subsets
+              AttributeIndex index = AttributeIndex.of(rel, fdset);
+              int[] closures = new int[1 << index.size()];
+              try {
+                  LatticeClosure lattice = LatticeClosure.compute(index, fdset, ctx, closures);
+                  subsets = lattice.size();
+                  fixpoints = lattice.fixpoints();
+                  iterations = lattice.iterations();
+              } finally {
+                  // if a limit was hit, the subsets not reached yet have closure 0 and are left out
+                  int full = (int) index.fullMask();
+                  for (int mask = 0; mask < closures.length; mask++) {
+                      if (closures[mask] == full) {
+                          superKeys.add(index.decode(mask));
+                      }
                   }
               }
-          } while (startSize != canDetermine.size());
+          } else {
+              // for every subset of attributes in our relation
+              for (Set<String> relSubSet : FDUtil.powerSet(rel, ctx)) {
+                  ctx.checkpoint();
+                  int startSize;
+                  // reset the canDetermine map
+                  canDetermine.clear();
+                  canDetermine.addAll(relSubSet);
+                  subsets++;
+                  fixpoints++;
+                  // do the a+ closure algorithm
+                  do {
+                      iterations++;
+                      startSize = canDetermine.size();
+                      for (FD fd : fdset) {
+                          if (canDetermine.containsAll(fd.getLeft())) {
+                              canDetermine.addAll(fd.getRight());
+                          }
+                      }
+                  } while (startSize != canDetermine.size());
 
-        // add another superkey if relSubSet can determine all attributes in rel under fdset
-        if (canDetermine.equals(rel)) {
-          superKeys.add(relSubSet);
-        }
+                // add another superkey if relSubSet can determine all attributes in rel under fdset
+                if (canDetermine.equals(rel)) {
+                  superKeys.add(relSubSet);
+                }
+              }
+          }
+      } catch (BudgetExceededException e) {
+          throw e.stoppedIn("findSuperkeys", superKeys);
+      }
+
+      if (metrics) {
+          Metrics.add(Metrics.Counter.ATTRIBUTE_CLOSURES, subsets);
+          Metrics.add(Metrics.Counter.ATTRIBUTE_CLOSURE_FIXPOINTS, fixpoints);
+          Metrics.add(Metrics.Counter.ATTRIBUTE_CLOSURE_ITERATIONS, iterations);
+          Metrics.add(Metrics.Counter.SUPERKEY_NANOS, System.nanoTime() - start);
+          event.relationSize = rel.size();
+          event.subsets = subsets;
+          event.superkeys = superKeys.size();
+          event.commit();
       }
       return superKeys;
   }
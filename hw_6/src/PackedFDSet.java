@@ -0,0 +1,400 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The off-heap storage behind FDSet.packed: a set of FDs kept as pairs of
+ * attribute bitsets outside the Java heap.
+ *
+ * Every FD is one fixed-width record of 2 * index.words() longs, its left
+ * bitset followed by its right one, appended in insertion order to a direct
+ * buffer. Once the records outgrow spillBytes they move to a memory-mapped
+ * temporary file, which is deleted right away so that nothing is left behind;
+ * the pages stay valid for as long as the mapping is reachable. Duplicates
+ * are found through an open-addressing hash table of record numbers, also
+ * off-heap, that hashes and compares the packed words directly; removed
+ * records are only marked dead. With 64 attributes or fewer an FD costs 16
+ * bytes of record and 8 to 16 bytes of table, instead of the hundreds of
+ * bytes of an FD object with two TreeSets.
+ *
+ * Iteration is in insertion order and decodes a new FD per record. Like the
+ * java.util collections, an iterator throws ConcurrentModificationException
+ * once the set is changed other than through it. A single mapping holds at
+ * most 2 GB of records. Not thread safe.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+final class PackedFDSet extends AbstractSet<FD> {
+
+  /** Records move to a mapped file past this many bytes by default */
+  static final long DEFAULT_SPILL_BYTES = 64L << 20;
+
+  private static final int EMPTY = 0;
+  private static final int REMOVED = -1;
+
+  private final AttributeIndex index;
+  private final long spillBytes;
+  private final int stride;
+
+  private ByteBuffer data;
+  private LongBuffer records;
+  private FileChannel spill;
+  /** records appended so far, dead ones included */
+  private int count;
+  private final BitSet dead = new BitSet();
+  private int size;
+  /** changes since creation, so that iterators can fail fast */
+  private int modCount;
+
+  private IntBuffer table;
+  private int used;
+
+  /** scratch record for lookups */
+  private final long[] key;
+
+  /**
+   * @param index      the attributes every FD is made of
+   * @param spillBytes how many bytes of records to keep in memory before
+   *                   moving them to a mapped file
+   */
+  PackedFDSet(AttributeIndex index, long spillBytes) {
+    if (spillBytes < 0) {
+      throw new IllegalArgumentException("The spill threshold must not be negative: " + spillBytes);
+    }
+    this.index = index;
+    this.spillBytes = spillBytes;
+    this.stride = 2 * Math.max(1, index.words());
+    this.key = new long[this.stride];
+    this.allocate(this.stride * 8L * 16);
+    this.table = newTable(64);
+  }
+
+  /**
+   * @return the attributes every FD is made of
+   */
+  AttributeIndex index() {
+    return this.index;
+  }
+
+  /**
+   * @return an empty set with the same attributes and spill threshold
+   */
+  PackedFDSet emptyCopy() {
+    return new PackedFDSet(this.index, this.spillBytes);
+  }
+
+  /**
+   * @return true if the records have moved to a mapped file
+   */
+  boolean isSpilled() {
+    return this.spill != null;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return (o instanceof FD) && this.encode((FD) o) && this.find(this.key) >= 0;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the FD has an attribute outside the
+   *                                  index
+   */
+  @Override
+  public boolean add(FD fd) {
+    if (!this.encode(fd)) {
+      throw new IllegalArgumentException("Unknown attribute in " + fd);
+    }
+    return this.insert(this.key);
+  }
+
+  /**
+   * Adds every live record of another packed set over the same index without
+   * decoding them
+   *
+   * @param other a packed set over the same index
+   * @return true if this set changed
+   */
+  boolean addAllPacked(PackedFDSet other) {
+    boolean changed = false;
+    long[] record = new long[this.stride];
+    for (int r = 0; r < other.count; r++) {
+      if (!other.dead.get(r)) {
+        other.records.get(r * this.stride, record);
+        changed |= this.insert(record);
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!(o instanceof FD) || !this.encode((FD) o)) {
+      return false;
+    }
+    int slot = this.find(this.key);
+    if (slot < 0) {
+      return false;
+    }
+    this.kill(slot);
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    this.count = 0;
+    this.size = 0;
+    this.used = 0;
+    this.dead.clear();
+    this.table = newTable(64);
+    this.modCount++;
+  }
+
+  @Override
+  public Iterator<FD> iterator() {
+    return new Iterator<FD>() {
+      private int next = PackedFDSet.this.nextLive(0);
+      private int last = -1;
+      private int expected = PackedFDSet.this.modCount;
+
+      @Override
+      public boolean hasNext() {
+        return this.next < PackedFDSet.this.count;
+      }
+
+      @Override
+      public FD next() {
+        this.check();
+        // the record found last time may have died since
+        this.next = PackedFDSet.this.nextLive(this.next);
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        this.last = this.next;
+        this.next = PackedFDSet.this.nextLive(this.next + 1);
+        return PackedFDSet.this.decode(this.last);
+      }
+
+      @Override
+      public void remove() {
+        if (this.last < 0) {
+          throw new IllegalStateException();
+        }
+        this.check();
+        PackedFDSet.this.records.get(this.last * PackedFDSet.this.stride, PackedFDSet.this.key);
+        PackedFDSet.this.kill(PackedFDSet.this.find(PackedFDSet.this.key));
+        this.expected = PackedFDSet.this.modCount;
+        this.last = -1;
+      }
+
+      private void check() {
+        if (PackedFDSet.this.modCount != this.expected) {
+          throw new ConcurrentModificationException();
+        }
+      }
+    };
+  }
+
+  private int nextLive(int from) {
+    int r = this.dead.nextClearBit(from);
+    return Math.min(r, this.count);
+  }
+
+  /**
+   * Packs an FD into key
+   *
+   * @return false if the FD has an attribute outside the index
+   */
+  private boolean encode(FD fd) {
+    int words = this.stride / 2;
+    for (String attr : fd.left()) {
+      if (this.index.indexOf(attr) < 0) {
+        return false;
+      }
+    }
+    for (String attr : fd.right()) {
+      if (this.index.indexOf(attr) < 0) {
+        return false;
+      }
+    }
+    if (words == 1) {
+      this.key[0] = this.index.mask(fd.left());
+      this.key[1] = this.index.mask(fd.right());
+      return true;
+    }
+    long[] left = this.index.encode(fd.left()).toLongArray();
+    long[] right = this.index.encode(fd.right()).toLongArray();
+    for (int w = 0; w < words; w++) {
+      this.key[w] = (w < left.length) ? left[w] : 0L;
+      this.key[words + w] = (w < right.length) ? right[w] : 0L;
+    }
+    return true;
+  }
+
+  private FD decode(int r) {
+    int words = this.stride / 2;
+    int base = r * this.stride;
+    if (words == 1) {
+      return new FD(this.index.decode(this.records.get(base)), this.index.decode(this.records.get(base + 1)));
+    }
+    long[] left = new long[words];
+    long[] right = new long[words];
+    this.records.get(base, left);
+    this.records.get(base + words, right);
+    return new FD(this.index.decode(BitSet.valueOf(left)), this.index.decode(BitSet.valueOf(right)));
+  }
+
+  /**
+   * @return the table slot of the record equal to key, or -1
+   */
+  private int find(long[] key) {
+    int mask = this.table.capacity() - 1;
+    for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+      int entry = this.table.get(slot);
+      if (entry == EMPTY) {
+        return -1;
+      }
+      if (entry != REMOVED && this.equalsRecord(entry - 1, key)) {
+        return slot;
+      }
+    }
+  }
+
+  private boolean insert(long[] record) {
+    if (this.find(record) >= 0) {
+      return false;
+    }
+    if (2L * (this.used + 1) > this.table.capacity()) {
+      this.rehash();
+    }
+    long needed = (long) (this.count + 1) * this.stride * 8;
+    if (needed > this.data.capacity()) {
+      this.allocate(Math.max(needed, 2L * this.data.capacity()));
+    }
+    this.records.put(this.count * this.stride, record);
+    int mask = this.table.capacity() - 1;
+    int slot = hash(record) & mask;
+    while (this.table.get(slot) != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    this.table.put(slot, ++this.count);
+    this.used++;
+    this.size++;
+    this.modCount++;
+    return true;
+  }
+
+  private void kill(int slot) {
+    this.dead.set(this.table.get(slot) - 1);
+    this.table.put(slot, REMOVED);
+    this.size--;
+    this.modCount++;
+  }
+
+  private boolean equalsRecord(int r, long[] key) {
+    int base = r * this.stride;
+    for (int w = 0; w < this.stride; w++) {
+      if (this.records.get(base + w) != key[w]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Rebuilds the table without the removed entries, twice as large if the
+   * live ones fill more than a quarter of it
+   */
+  private void rehash() {
+    int capacity = this.table.capacity();
+    if (4L * this.size > capacity) {
+      capacity *= 2;
+    }
+    IntBuffer table = newTable(capacity);
+    int mask = capacity - 1;
+    long[] record = new long[this.stride];
+    for (int r = 0; r < this.count; r++) {
+      if (!this.dead.get(r)) {
+        this.records.get(r * this.stride, record);
+        int slot = hash(record) & mask;
+        while (table.get(slot) != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        table.put(slot, r + 1);
+      }
+    }
+    this.table = table;
+    this.used = this.size;
+  }
+
+  /**
+   * Makes room for the given number of bytes of records, moving them to a
+   * mapped temporary file once they outgrow the spill threshold
+   */
+  private void allocate(long bytes) {
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalStateException("A packed FD set holds at most " + Integer.MAX_VALUE + " bytes of records.");
+    }
+    // a new mapping of the file already holds the records of the old one
+    boolean copy = this.data != null && this.spill == null;
+    ByteBuffer data;
+    if (bytes <= this.spillBytes) {
+      data = ByteBuffer.allocateDirect((int) bytes);
+    } else {
+      try {
+        if (this.spill == null) {
+          Path file = Files.createTempFile("fdset", ".packed");
+          this.spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+          try {
+            Files.delete(file);
+          } catch (IOException e) {
+            // some platforms cannot delete an open file
+            file.toFile().deleteOnExit();
+          }
+        }
+        data = this.spill.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    data.order(ByteOrder.nativeOrder());
+    if (copy) {
+      ByteBuffer old = this.data.duplicate();
+      old.position(0).limit(this.count * this.stride * 8);
+      data.put(old);
+      data.clear();
+    }
+    this.data = data;
+    this.records = data.asLongBuffer();
+  }
+
+  private static IntBuffer newTable(int capacity) {
+    return ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+  }
+
+  private static int hash(long[] record) {
+    long h = 0x9E3779B97F4A7C15L;
+    for (int w = 0; w < record.length; w++) {
+      h = (h ^ record[w]) * 0xBF58476D1CE4E5B9L;
+      h ^= h >>> 31;
+    }
+    return (int) (h ^ (h >>> 32));
+  }
+}
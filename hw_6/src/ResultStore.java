@@ -0,0 +1,483 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * A file-backed cache of normalization results that survives across runs.
+ *
+ * The file is append-only: a header followed by one record per result, each
+ * holding the operation, the SHA-256 hash of its canonical input, the encoded
+ * result and a CRC32 of all of these. On open, the records are scanned once
+ * to build an in-memory index from hash to file offset; a record that fails
+ * its checksum ends the scan and the file is cut back to the last good one,
+ * which is what a write interrupted by a crash leaves behind. Lookups read
+ * the result from a read-only mapping of the file and check its CRC again.
+ *
+ * The header carries the file format version and RESULTS_VERSION. When
+ * either differs from the running code the whole file is stale and is
+ * emptied, so RESULTS_VERSION must be bumped whenever a change to Normalizer
+ * would give different results for the same input.
+ *
+ * The canonical input is the operation, the sorted relation and the sorted
+ * FDs (packed FD sets iterate in insertion order, so they are sorted first),
+ * so only identical inputs share an entry; equivalent FD sets written
+ * differently are cached separately. The file is locked while open, so it is
+ * owned by one JVM at a time.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class ResultStore implements Closeable {
+
+  /** Bump when Normalizer results for the same input change */
+  public static final int RESULTS_VERSION = 1;
+
+  private static final int MAGIC = 0x53524446; // "FDRS" read little-endian
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  /** record length, operation, hash, then the payload and a CRC32 */
+  private static final int RECORD_OVERHEAD = 4 + 4 + 32 + 4;
+
+  /**
+   * The operations whose results are stored
+   */
+  public enum Operation {
+    SUPERKEYS, IS_BCNF, BCNF_DECOMPOSE, CANDIDATE_KEYS
+  }
+
+  private final FileChannel channel;
+  private final FileLock lock;
+  private final Map<ByteBuffer, Long> index = new HashMap<>();
+  private MappedByteBuffer mapped;
+  private long end;
+  private long hits = 0;
+  private long misses = 0;
+
+  private ResultStore(FileChannel channel, FileLock lock) {
+    this.channel = channel;
+    this.lock = lock;
+  }
+
+  /**
+   * Opens a store, creating the file if it does not exist
+   *
+   * @param file the store file
+   * @return the open store, to be closed
+   * @throws IOException if the file cannot be opened or is locked by another
+   *                     process
+   */
+  public static ResultStore open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      FileLock lock;
+      try {
+        lock = channel.tryLock();
+      } catch (OverlappingFileLockException e) {
+        lock = null;
+      }
+      if (lock == null) {
+        throw new IOException(file + " is in use by another store.");
+      }
+      ResultStore store = new ResultStore(channel, lock);
+      store.load();
+      return store;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Scans the file and builds the index, resetting a stale file and cutting
+   * off a damaged tail
+   */
+  private void load() throws IOException {
+    long size = this.channel.size();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (size >= HEADER_SIZE) {
+      this.channel.read(header, 0);
+      header.flip();
+    }
+    if (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+        || header.getInt(8) != RESULTS_VERSION) {
+      this.channel.truncate(0);
+      header.clear();
+      header.putInt(MAGIC).putInt(VERSION).putInt(RESULTS_VERSION).putInt(0).flip();
+      this.channel.write(header, 0);
+      this.end = HEADER_SIZE;
+      this.remap();
+      return;
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Stores larger than 2 GB are not supported.");
+    }
+    this.end = size;
+    this.remap();
+    long position = HEADER_SIZE;
+    while (position < size) {
+      int length = this.validRecordLength(position, size);
+      if (length < 0) {
+        break;
+      }
+      this.index.put(this.hashAt(position), position);
+      position += length;
+    }
+    if (position < size) {
+      this.channel.truncate(position);
+      this.end = position;
+      this.remap();
+    }
+  }
+
+  private void remap() throws IOException {
+    this.mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.end);
+    this.mapped.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * @return the length of the record at position, or -1 if it is cut off or
+   *         fails its checksum
+   */
+  private int validRecordLength(long position, long limit) {
+    if (position + RECORD_OVERHEAD > limit) {
+      return -1;
+    }
+    int p = (int) position;
+    int length = this.mapped.getInt(p);
+    if (length < RECORD_OVERHEAD || position + length > limit) {
+      return -1;
+    }
+    CRC32 crc = new CRC32();
+    ByteBuffer body = this.mapped.duplicate();
+    body.position(p + 4).limit(p + length - 4);
+    crc.update(body);
+    return ((int) crc.getValue() == this.mapped.getInt(p + length - 4)) ? length : -1;
+  }
+
+  private ByteBuffer hashAt(long position) {
+    byte[] hash = new byte[32];
+    ByteBuffer record = this.mapped.duplicate();
+    record.position((int) position + 8);
+    record.get(hash);
+    return ByteBuffer.wrap(hash);
+  }
+
+  /**
+   * Superkeys of the relation, from the store or computed and stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @return every superkey of the relation
+   * @throws IOException if the store cannot be written
+   */
+  public Set<Set<String>> findSuperkeys(Set<String> rel, FDSet fdset) throws IOException {
+    return this.findSuperkeys(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Superkeys of the relation, from the store or computed within the given
+   * limits and stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of a computation
+   * @return every superkey of the relation
+   * @throws IOException             if the store cannot be written
+   * @throws BudgetExceededException if it has to be computed and a limit is hit
+   */
+  public Set<Set<String>> findSuperkeys(Set<String> rel, FDSet fdset, ExecutionContext ctx) throws IOException {
+    return decodeSets(this.computeIfAbsent(Operation.SUPERKEYS, rel, fdset,
+        () -> encodeSets(Normalizer.findSuperkeys(rel, fdset, ctx))));
+  }
+
+  /**
+   * Candidate keys of the relation, from the store or computed and stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @return the candidate keys of the relation
+   * @throws IOException if the store cannot be written
+   */
+  public Set<Set<String>> findCandidateKeys(Set<String> rel, FDSet fdset) throws IOException {
+    return this.findCandidateKeys(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Candidate keys of the relation, from the store or computed within the
+   * given limits and stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of a computation
+   * @return the candidate keys of the relation
+   * @throws IOException             if the store cannot be written
+   * @throws BudgetExceededException if it has to be computed and a limit is hit
+   */
+  public Set<Set<String>> findCandidateKeys(Set<String> rel, FDSet fdset, ExecutionContext ctx) throws IOException {
+    return decodeSets(this.computeIfAbsent(Operation.CANDIDATE_KEYS, rel, fdset,
+        () -> encodeSets(Normalizer.findCandidateKeys(rel, fdset, ctx))));
+  }
+
+  /**
+   * Whether the relation is in BCNF, from the store or computed and stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @return true if the relation is in BCNF
+   * @throws IOException if the store cannot be written
+   */
+  public boolean isBCNF(Set<String> rel, FDSet fdset) throws IOException {
+    return this.isBCNF(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * Whether the relation is in BCNF, from the store or computed within the
+   * given limits and stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of a computation
+   * @return true if the relation is in BCNF
+   * @throws IOException             if the store cannot be written
+   * @throws BudgetExceededException if it has to be computed and a limit is hit
+   */
+  public boolean isBCNF(Set<String> rel, FDSet fdset, ExecutionContext ctx) throws IOException {
+    return this.computeIfAbsent(Operation.IS_BCNF, rel, fdset,
+        () -> new byte[] { (byte) (Normalizer.isBCNF(rel, fdset, ctx) ? 1 : 0) })[0] != 0;
+  }
+
+  /**
+   * A BCNF decomposition of the relation, from the store or computed and
+   * stored
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @return a set of relations (as attribute sets) that are in BCNF
+   * @throws IOException if the store cannot be written
+   */
+  public Set<Set<String>> BCNFDecompose(Set<String> rel, FDSet fdset) throws IOException {
+    return this.BCNFDecompose(rel, fdset, ExecutionContext.unbounded());
+  }
+
+  /**
+   * A BCNF decomposition of the relation, from the store or computed within
+   * the given limits and stored. The computation is not narrated.
+   *
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @param ctx   the limits of a computation
+   * @return a set of relations (as attribute sets) that are in BCNF
+   * @throws IOException             if the store cannot be written
+   * @throws BudgetExceededException if it has to be computed and a limit is hit
+   */
+  public Set<Set<String>> BCNFDecompose(Set<String> rel, FDSet fdset, ExecutionContext ctx) throws IOException {
+    return decodeSets(this.computeIfAbsent(Operation.BCNF_DECOMPOSE, rel, fdset,
+        () -> encodeSets(Normalizer.BCNFDecompose(rel, fdset, ctx, null))));
+  }
+
+  /**
+   * @param op    an operation
+   * @param rel   A relation (as an attribute set)
+   * @param fdset A functional dependency set
+   * @return the stored result of the operation, or null if there is none
+   */
+  public synchronized byte[] get(Operation op, Set<String> rel, FDSet fdset) {
+    Long position = this.index.get(ByteBuffer.wrap(key(op, rel, fdset)));
+    if (position == null) {
+      return null;
+    }
+    if (this.mapped.capacity() < this.end) {
+      // records were appended since the last mapping
+      try {
+        this.remap();
+      } catch (IOException e) {
+        return null;
+      }
+    }
+    if (this.validRecordLength(position, this.end) < 0) {
+      // damaged since it was indexed; recompute rather than trust it
+      this.index.values().remove(position);
+      return null;
+    }
+    int p = position.intValue();
+    int length = this.mapped.getInt(p);
+    byte[] payload = new byte[length - RECORD_OVERHEAD];
+    ByteBuffer record = this.mapped.duplicate();
+    record.position(p + 40);
+    record.get(payload);
+    return payload;
+  }
+
+  /**
+   * Appends a result; a later put for the same input takes its place
+   *
+   * @param op      an operation
+   * @param rel     A relation (as an attribute set)
+   * @param fdset   A functional dependency set
+   * @param payload the encoded result
+   * @throws IOException if the store cannot be written
+   */
+  public synchronized void put(Operation op, Set<String> rel, FDSet fdset, byte[] payload) throws IOException {
+    byte[] hash = key(op, rel, fdset);
+    int length = RECORD_OVERHEAD + payload.length;
+    if (this.end + length > Integer.MAX_VALUE) {
+      throw new IOException("Stores larger than 2 GB are not supported.");
+    }
+    ByteBuffer record = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    record.putInt(length).putInt(op.ordinal()).put(hash).put(payload);
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), 4, length - 8);
+    record.putInt((int) crc.getValue()).flip();
+    long position = this.end;
+    while (record.hasRemaining()) {
+      this.channel.write(record, position + record.position());
+    }
+    this.end += length;
+    this.index.put(ByteBuffer.wrap(hash), position);
+  }
+
+  private byte[] computeIfAbsent(Operation op, Set<String> rel, FDSet fdset, Supplier<byte[]> compute)
+      throws IOException {
+    byte[] payload = this.get(op, rel, fdset);
+    synchronized (this) {
+      if (payload != null) {
+        this.hits++;
+        return payload;
+      }
+      this.misses++;
+    }
+    payload = compute.get();
+    this.put(op, rel, fdset, payload);
+    return payload;
+  }
+
+  /**
+   * @return the number of results in the store
+   */
+  public synchronized int size() {
+    return this.index.size();
+  }
+
+  /**
+   * @return how many lookups were answered from the store, and how many had
+   *         to be computed, since it was opened
+   */
+  public synchronized String stats() {
+    return "hits=" + this.hits + " misses=" + this.misses + " entries=" + this.index.size() + " bytes=" + this.end;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      this.channel.force(false);
+      this.lock.release();
+    } finally {
+      this.channel.close();
+      this.mapped = null;
+    }
+  }
+
+  /**
+   * @return the SHA-256 hash of the canonical form of the input: the
+   *         operation, the sorted relation and every FD in sorted order,
+   *         each name prefixed with its length
+   */
+  static byte[] key(Operation op, Set<String> rel, FDSet fdset) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+    ByteBuffer buf = ByteBuffer.allocate(4);
+    update(digest, buf, op.ordinal());
+    update(digest, buf, rel.size());
+    for (String attr : new TreeSet<>(rel)) {
+      update(digest, buf, attr);
+    }
+    // packed sets iterate in insertion order, so sort them like the others
+    TreeSet<FD> fds = new TreeSet<>();
+    fdset.forEach(fds::add);
+    update(digest, buf, fds.size());
+    for (FD fd : fds) {
+      update(digest, buf, fd.left().size());
+      for (String attr : fd.left()) {
+        update(digest, buf, attr);
+      }
+      update(digest, buf, fd.right().size());
+      for (String attr : fd.right()) {
+        update(digest, buf, attr);
+      }
+    }
+    return digest.digest();
+  }
+
+  private static void update(MessageDigest digest, ByteBuffer buf, int n) {
+    buf.clear();
+    buf.putInt(n).flip();
+    digest.update(buf);
+  }
+
+  private static void update(MessageDigest digest, ByteBuffer buf, String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    update(digest, buf, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static byte[] encodeSets(Set<Set<String>> sets) {
+    int size = 4;
+    for (Set<String> set : sets) {
+      size += 4;
+      for (String name : set) {
+        size += 4 + 4 * name.length();
+      }
+    }
+    ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    buf.putInt(sets.size());
+    for (Set<String> set : sets) {
+      buf.putInt(set.size());
+      for (String name : set) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buf.putInt(bytes.length).put(bytes);
+      }
+    }
+    byte[] payload = new byte[buf.position()];
+    buf.flip().get(payload);
+    return payload;
+  }
+
+  private static Set<Set<String>> decodeSets(byte[] payload) {
+    ByteBuffer buf = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+    int n = buf.getInt();
+    Set<Set<String>> sets = new HashSet<>();
+    for (int i = 0; i < n; i++) {
+      int k = buf.getInt();
+      Set<String> set = new TreeSet<>();
+      for (int j = 0; j < k; j++) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        set.add(new String(bytes, StandardCharsets.UTF_8));
+      }
+      sets.add(set);
+    }
+    return sets;
+  }
+}
@@ -0,0 +1,389 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A set-trie: a map from attribute sets to values that also answers subset
+ * and superset queries without scanning every stored set.
+ *
+ * Every attribute gets a number, every set is stored as the path of its
+ * attribute numbers in increasing order, and children are kept sorted by
+ * number. A search for stored subsets of X only follows children whose
+ * number is in X; a search for stored supersets of X may skip attributes
+ * smaller than the next one of X it still needs, and gives up on a branch as
+ * soon as it has passed that attribute. So "is any stored set contained in
+ * X" is answered after visiting only sets made of X's attributes, which is
+ * what a superkey test against the minimal keys needs.
+ *
+ * Built over an AttributeIndex, attributes are numbered like the index and
+ * sets can also be given as bitmasks; otherwise attributes are numbered as
+ * they are first stored. Not thread safe.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class SetTrie<V> {
+
+  private static final class Node<V> {
+    int[] labels = new int[0];
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Node<V>[] children = new Node[0];
+    boolean stored;
+    V value;
+
+    Node<V> child(int label) {
+      int i = Arrays.binarySearch(this.labels, label);
+      return (i >= 0) ? this.children[i] : null;
+    }
+
+    Node<V> addChild(int label) {
+      int i = Arrays.binarySearch(this.labels, label);
+      if (i >= 0) {
+        return this.children[i];
+      }
+      i = -i - 1;
+      int n = this.labels.length;
+      int[] labels = new int[n + 1];
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      Node<V>[] children = new Node[n + 1];
+      System.arraycopy(this.labels, 0, labels, 0, i);
+      System.arraycopy(this.children, 0, children, 0, i);
+      System.arraycopy(this.labels, i, labels, i + 1, n - i);
+      System.arraycopy(this.children, i, children, i + 1, n - i);
+      labels[i] = label;
+      children[i] = new Node<>();
+      this.labels = labels;
+      this.children = children;
+      return children[i];
+    }
+
+    void removeChild(int label) {
+      int i = Arrays.binarySearch(this.labels, label);
+      int n = this.labels.length;
+      int[] labels = new int[n - 1];
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      Node<V>[] children = new Node[n - 1];
+      System.arraycopy(this.labels, 0, labels, 0, i);
+      System.arraycopy(this.children, 0, children, 0, i);
+      System.arraycopy(this.labels, i + 1, labels, i, n - i - 1);
+      System.arraycopy(this.children, i + 1, children, i, n - i - 1);
+      this.labels = labels;
+      this.children = children;
+    }
+  }
+
+  private final AttributeIndex index;
+  private final Map<String, Integer> numbers;
+  private final Node<V> root = new Node<>();
+  private int size;
+
+  /**
+   * Creates an empty set-trie that numbers attributes as they are stored
+   */
+  public SetTrie() {
+    this.index = null;
+    this.numbers = new HashMap<>();
+  }
+
+  /**
+   * Creates an empty set-trie over the attributes of an index, which also
+   * takes sets as bitmasks of the index
+   *
+   * @param index the attributes
+   */
+  public SetTrie(AttributeIndex index) {
+    this.index = index;
+    this.numbers = null;
+  }
+
+  /**
+   * @return the number of stored sets
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Stores a set
+   *
+   * @param attrs an attribute set
+   * @param value the value to map it to
+   * @return the value it was mapped to before, or null
+   * @throws IllegalArgumentException if built over an index that does not
+   *                                  have one of the attributes
+   */
+  public V put(Set<String> attrs, V value) {
+    int[] path = new int[attrs.size()];
+    int i = 0;
+    for (String attr : attrs) {
+      path[i++] = this.number(attr, true);
+    }
+    Arrays.sort(path);
+    return this.put(path, value);
+  }
+
+  /**
+   * Stores a set given as a bitmask of the index
+   *
+   * @param mask  an attribute set
+   * @param value the value to map it to
+   * @return the value it was mapped to before, or null
+   */
+  public V put(long mask, V value) {
+    return this.put(path(mask), value);
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the value stored for exactly this set, or null
+   */
+  public V get(Set<String> attrs) {
+    int[] path = this.path(attrs);
+    Node<V> node = (path == null) ? null : this.find(path);
+    return (node != null && node.stored) ? node.value : null;
+  }
+
+  /**
+   * Removes a set
+   *
+   * @param attrs an attribute set
+   * @return the value it was mapped to, or null if it was not stored
+   */
+  public V remove(Set<String> attrs) {
+    int[] path = this.path(attrs);
+    if (path == null) {
+      return null;
+    }
+    // remember the path so that branches left empty can be cut off
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Node<V>[] nodes = new Node[path.length + 1];
+    nodes[0] = this.root;
+    for (int i = 0; i < path.length; i++) {
+      nodes[i + 1] = nodes[i].child(path[i]);
+      if (nodes[i + 1] == null) {
+        return null;
+      }
+    }
+    Node<V> node = nodes[path.length];
+    if (!node.stored) {
+      return null;
+    }
+    V value = node.value;
+    node.stored = false;
+    node.value = null;
+    this.size--;
+    for (int i = path.length; i > 0 && !nodes[i].stored && nodes[i].labels.length == 0; i--) {
+      nodes[i - 1].removeChild(path[i - 1]);
+    }
+    return value;
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return true if some stored set is a subset of attrs
+   */
+  public boolean containsSubsetOf(Set<String> attrs) {
+    return this.anySubset(this.root, this.knownPath(attrs), 0, attrs.size() + 1);
+  }
+
+  /**
+   * @param mask an attribute set as a bitmask of the index
+   * @return true if some stored set is a subset of it
+   */
+  public boolean containsSubsetOf(long mask) {
+    return this.anySubset(this.root, path(mask), 0, Long.bitCount(mask) + 1);
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return true if no stored set is a proper subset of attrs
+   */
+  public boolean isMinimal(Set<String> attrs) {
+    return !this.anySubset(this.root, this.knownPath(attrs), 0, attrs.size());
+  }
+
+  /**
+   * @param mask an attribute set as a bitmask of the index
+   * @return true if no stored set is a proper subset of it
+   */
+  public boolean isMinimal(long mask) {
+    return !this.anySubset(this.root, path(mask), 0, Long.bitCount(mask));
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the values of every stored subset of attrs
+   */
+  public List<V> subsetsOf(Set<String> attrs) {
+    List<V> result = new ArrayList<>();
+    this.collectSubsets(this.root, this.knownPath(attrs), 0, result);
+    return result;
+  }
+
+  /**
+   * @param attrs an attribute set
+   * @return the values of every stored superset of attrs
+   */
+  public List<V> supersetsOf(Set<String> attrs) {
+    List<V> result = new ArrayList<>();
+    int[] path = this.path(attrs);
+    if (path != null) {
+      this.collectSupersets(this.root, path, 0, result);
+    }
+    return result;
+  }
+
+  /**
+   * @param mask an attribute set as a bitmask of the index
+   * @return the values of every stored superset of it
+   */
+  public List<V> supersetsOf(long mask) {
+    List<V> result = new ArrayList<>();
+    this.collectSupersets(this.root, path(mask), 0, result);
+    return result;
+  }
+
+  private V put(int[] path, V value) {
+    Node<V> node = this.root;
+    for (int label : path) {
+      node = node.addChild(label);
+    }
+    V old = node.value;
+    if (!node.stored) {
+      node.stored = true;
+      this.size++;
+    }
+    node.value = value;
+    return old;
+  }
+
+  private Node<V> find(int[] path) {
+    Node<V> node = this.root;
+    for (int i = 0; i < path.length && node != null; i++) {
+      node = node.child(path[i]);
+    }
+    return node;
+  }
+
+  /**
+   * @return true if a stored set with fewer than limit attributes is made of
+   *         path[from..] only
+   */
+  private boolean anySubset(Node<V> node, int[] path, int from, int limit) {
+    if (limit <= 0) {
+      return false;
+    }
+    if (node.stored) {
+      return true;
+    }
+    int[] labels = node.labels;
+    int c = 0;
+    for (int i = from; i < path.length && c < labels.length; i++) {
+      while (c < labels.length && labels[c] < path[i]) {
+        c++;
+      }
+      if (c < labels.length && labels[c] == path[i]
+          && this.anySubset(node.children[c], path, i + 1, limit - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void collectSubsets(Node<V> node, int[] path, int from, List<V> result) {
+    if (node.stored) {
+      result.add(node.value);
+    }
+    int[] labels = node.labels;
+    int c = 0;
+    for (int i = from; i < path.length && c < labels.length; i++) {
+      while (c < labels.length && labels[c] < path[i]) {
+        c++;
+      }
+      if (c < labels.length && labels[c] == path[i]) {
+        this.collectSubsets(node.children[c], path, i + 1, result);
+      }
+    }
+  }
+
+  private void collectSupersets(Node<V> node, int[] path, int from, List<V> result) {
+    if (from == path.length && node.stored) {
+      result.add(node.value);
+    }
+    int[] labels = node.labels;
+    for (int c = 0; c < labels.length; c++) {
+      if (from < path.length && labels[c] > path[from]) {
+        // the next attribute we need can no longer appear below this node
+        break;
+      }
+      int next = (from < path.length && labels[c] == path[from]) ? from + 1 : from;
+      this.collectSupersets(node.children[c], path, next, result);
+    }
+  }
+
+  /**
+   * @return the attribute number, or -1 if it has none and create is false
+   */
+  private int number(String attr, boolean create) {
+    if (this.index != null) {
+      int i = this.index.indexOf(attr);
+      if (i < 0 && create) {
+        throw new IllegalArgumentException("Unknown attribute: " + attr);
+      }
+      return i;
+    }
+    Integer i = this.numbers.get(attr);
+    if (i == null && create) {
+      i = this.numbers.size();
+      this.numbers.put(attr, i);
+    }
+    return (i == null) ? -1 : i;
+  }
+
+  /**
+   * @return the sorted attribute numbers, or null if an attribute has none
+   *         (then no stored set can contain the set)
+   */
+  private int[] path(Set<String> attrs) {
+    int[] path = new int[attrs.size()];
+    int i = 0;
+    for (String attr : attrs) {
+      int number = this.number(attr, false);
+      if (number < 0) {
+        return null;
+      }
+      path[i++] = number;
+    }
+    Arrays.sort(path);
+    return path;
+  }
+
+  /**
+   * @return the sorted numbers of the attributes that have one; the others
+   *         cannot be in any stored set
+   */
+  private int[] knownPath(Set<String> attrs) {
+    int[] path = new int[attrs.size()];
+    int n = 0;
+    for (String attr : attrs) {
+      int number = this.number(attr, false);
+      if (number >= 0) {
+        path[n++] = number;
+      }
+    }
+    Arrays.sort(path, 0, n);
+    return Arrays.copyOf(path, n);
+  }
+
+  private static int[] path(long mask) {
+    int[] path = new int[Long.bitCount(mask)];
+    int i = 0;
+    for (long m = mask; m != 0; m &= m - 1) {
+      path[i++] = Long.numberOfTrailingZeros(m);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,758 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+/**
+ * Candidate-key search over the subset lattice, sharded across worker
+ * processes that talk to a coordinator over sockets.
+ *
+ * The lattice of Normalizer.findSuperkeys is cut down first: an attribute
+ * that no FD determines is in every key, and one that is determined but
+ * determines nothing is in none, so only the subsets of the remaining
+ * "middle" attributes vary. The first p middle attributes are the prefix,
+ * and shard s holds the subsets whose prefix is exactly the attributes in
+ * the bits of s, so the 2^p shards split the lattice without overlap. A
+ * worker searches its shard level by level, closing a whole level at a time
+ * with BatchClosure and skipping every superset of a key it has found, and
+ * streams the keys back after every level. Those keys are minimal within the
+ * shard; the coordinator merges them into one SetTrie, where a key is dropped
+ * if it contains a key from any shard and evicts the keys that contain it, so
+ * what remains are exactly the candidate keys. Every superkey is a superset
+ * of one of them.
+ *
+ * Every connection has one shard in flight at a time and takes the next one
+ * from a shared queue when it is done, so faster workers take more shards.
+ * When a worker dies, its connection drops, or it sends nothing for the
+ * timeout (a busy worker sends a heartbeat every second), its shard goes
+ * back to the front of the queue for another worker. Keys it already sent
+ * are kept, since they are real keys and a repeat is merged away. The search
+ * fails only when no worker is left. Lost workers are reported to the stream
+ * given to setLog, if any.
+ *
+ * Workers run as "java ShardedKeySearch -worker [-host h] [-port n]", on this
+ * machine or on others, and a coordinator connects to them with connect(), or
+ * starts local ones with launch(). Running "java ShardedKeySearch -workers n
+ * [-attributes a] [-fds f] [-prefix p]" times a search on a generated workload
+ * against Normalizer.findCandidateKeys. At most 64 attributes are supported.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class ShardedKeySearch implements Closeable {
+
+  // messages from the coordinator
+  private static final int JOB = 'J';
+  private static final int SHARD = 'S';
+  // messages from a worker
+  private static final int KEY = 'K';
+  private static final int DONE = 'D';
+  private static final int ERROR = 'E';
+  private static final int HEARTBEAT = 'H';
+
+  /** How often a worker busy with a shard says it is still alive */
+  private static final long HEARTBEAT_MILLIS = 1000;
+  /** How long a worker may stay silent by default before it is given up */
+  private static final int DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+  /** How many candidates a worker closes in one batch */
+  private static final int BATCH = 4096;
+
+  /**
+   * One connection to a worker
+   */
+  private static final class Link {
+    final String name;
+    final Socket socket;
+    final DataInputStream in;
+    final DataOutputStream out;
+    volatile boolean alive = true;
+
+    Link(String name, Socket socket) throws IOException {
+      this.name = name;
+      this.socket = socket;
+      this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    void close() {
+      this.alive = false;
+      try {
+        this.socket.close();
+      } catch (IOException e) {
+        // already gone
+      }
+    }
+  }
+
+  /**
+   * One search: the attributes, the FDs as bitmasks, and how its lattice is
+   * cut down and sharded
+   */
+  private static final class Job {
+    final AttributeIndex index;
+    final long[] lhs;
+    final long[] rhs;
+    /** attributes that no FD determines, so every key has them */
+    final long core;
+    /** attributes that are determined and determine others; the rest of a
+     *  key is made of these */
+    final long middle;
+    /** the middle attributes that the shards are split on */
+    final long prefix;
+
+    Job(AttributeIndex index, long[] lhs, long[] rhs, long prefix) {
+      this.index = index;
+      this.lhs = lhs;
+      this.rhs = rhs;
+      long determined = 0L;
+      long determining = 0L;
+      for (int i = 0; i < lhs.length; i++) {
+        determined |= rhs[i] & ~lhs[i];
+        determining |= lhs[i];
+      }
+      // an attribute that determines nothing can be dropped from any key,
+      // since the rest of the key still determines it
+      this.core = index.fullMask() & ~determined;
+      this.middle = determined & determining;
+      this.prefix = prefix;
+    }
+
+    static Job of(AttributeIndex index, FDSet fdset, int prefix) {
+      long[] lhs = new long[fdset.size()];
+      long[] rhs = new long[fdset.size()];
+      int f = 0;
+      for (FD fd : fdset) {
+        lhs[f] = index.mask(fd.left());
+        rhs[f] = index.mask(fd.right());
+        f++;
+      }
+      long middle = new Job(index, lhs, rhs, 0L).middle;
+      // a worker enumerates the other middle attributes with a long, which
+      // needs a spare bit
+      int p = Math.max(Math.min(prefix, Long.bitCount(middle)), Long.bitCount(middle) - 62);
+      long mask = 0L;
+      for (int i = 0; i < p; i++, middle &= middle - 1) {
+        mask |= Long.lowestOneBit(middle);
+      }
+      return new Job(index, lhs, rhs, mask);
+    }
+
+    /**
+     * @return the attributes that a shard's subsets have among the prefix
+     */
+    long shard(int shard) {
+      long in = 0L;
+      int b = 0;
+      for (long bits = this.prefix; bits != 0; bits &= bits - 1, b++) {
+        if ((shard >>> b & 1) != 0) {
+          in |= Long.lowestOneBit(bits);
+        }
+      }
+      return in;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeByte(JOB);
+      out.writeInt(this.index.size());
+      for (int i = 0; i < this.index.size(); i++) {
+        out.writeUTF(this.index.name(i));
+      }
+      out.writeInt(this.lhs.length);
+      for (int i = 0; i < this.lhs.length; i++) {
+        out.writeLong(this.lhs[i]);
+        out.writeLong(this.rhs[i]);
+      }
+      out.writeLong(this.prefix);
+    }
+
+    static Job read(DataInputStream in) throws IOException {
+      List<String> names = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        names.add(in.readUTF());
+      }
+      int m = in.readInt();
+      long[] lhs = new long[m];
+      long[] rhs = new long[m];
+      for (int i = 0; i < m; i++) {
+        lhs[i] = in.readLong();
+        rhs[i] = in.readLong();
+      }
+      return new Job(new AttributeIndex(names), lhs, rhs, in.readLong());
+    }
+  }
+
+  private final List<Link> links;
+  private final List<Process> processes;
+  /** Where lost workers are reported, or null for silence */
+  private volatile PrintStream log;
+
+  private ShardedKeySearch(List<Link> links, List<Process> processes) {
+    this.links = links;
+    this.processes = processes;
+  }
+
+  /**
+   * Sets how long a worker may send nothing while it has a shard before it
+   * is given up and its shard goes to another worker
+   *
+   * @param millis the timeout, well above the one-second heartbeat
+   * @return this coordinator
+   * @throws IOException if a connection rejects the timeout
+   */
+  public ShardedKeySearch timeout(int millis) throws IOException {
+    if (millis <= HEARTBEAT_MILLIS) {
+      throw new IllegalArgumentException("The timeout must be longer than the heartbeat, not " + millis + " ms.");
+    }
+    for (Link link : this.links) {
+      link.socket.setSoTimeout(millis);
+    }
+    return this;
+  }
+
+  /**
+   * Reports every worker that is lost during a search
+   *
+   * @param out where to print, or null to print nothing
+   */
+  public void setLog(PrintStream out) {
+    this.log = out;
+  }
+
+  /**
+   * Connects to running workers
+   *
+   * @param workers the address of every worker
+   * @return a coordinator for those workers
+   * @throws IOException if a worker cannot be reached
+   */
+  public static ShardedKeySearch connect(List<InetSocketAddress> workers) throws IOException {
+    List<Link> links = new ArrayList<>();
+    try {
+      for (InetSocketAddress address : workers) {
+        Socket socket = new Socket();
+        socket.connect(address);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(DEFAULT_TIMEOUT_MILLIS);
+        links.add(new Link(address.toString(), socket));
+      }
+    } catch (IOException e) {
+      links.forEach(Link::close);
+      throw e;
+    }
+    return new ShardedKeySearch(links, new ArrayList<>());
+  }
+
+  /**
+   * Starts worker JVMs on this machine, with this JVM's class path, and
+   * connects to them. They exit when the coordinator is closed.
+   *
+   * @param workers how many workers to start
+   * @return a coordinator for the new workers
+   * @throws IOException if a worker cannot be started
+   */
+  public static ShardedKeySearch launch(int workers) throws IOException {
+    if (workers < 1) {
+      throw new IllegalArgumentException("At least one worker is needed, not " + workers + ".");
+    }
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    List<Process> processes = new ArrayList<>();
+    List<InetSocketAddress> addresses = new ArrayList<>();
+    try {
+      for (int i = 0; i < workers; i++) {
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "ShardedKeySearch",
+            "-worker", "-port", "0", "-once").redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        processes.add(process);
+      }
+      // the first line a worker prints is the port it listens on
+      for (Process process : processes) {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+          throw new IOException("A worker exited before it was listening.");
+        }
+        int port = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+        addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+      }
+      ShardedKeySearch search = connect(addresses);
+      search.processes.addAll(processes);
+      return search;
+    } catch (IOException | RuntimeException e) {
+      processes.forEach(Process::destroyForcibly);
+      throw e;
+    }
+  }
+
+  /**
+   * @return how many workers are still connected
+   */
+  public int workers() {
+    return (int) this.links.stream().filter(link -> link.alive).count();
+  }
+
+  /**
+   * Finds the candidate keys with four shards or so per worker
+   *
+   * @param rel   A relation (as an attribute set), at most 64 attributes
+   * @param fdset A functional dependency set over the relation
+   * @return the candidate keys
+   * @throws IOException if every worker failed before the search was done
+   */
+  public Set<Set<String>> findCandidateKeys(Set<String> rel, FDSet fdset) throws IOException {
+    int prefix = 32 - Integer.numberOfLeadingZeros(4 * Math.max(1, this.workers()) - 1);
+    return this.findCandidateKeys(rel, fdset, Math.min(prefix, rel.size()));
+  }
+
+  /**
+   * Finds the candidate keys with 2^prefix shards
+   *
+   * @param rel    A relation (as an attribute set), at most 64 attributes
+   * @param fdset  A functional dependency set over the relation
+   * @param prefix how many attributes to shard on, at most 20; fewer if
+   *               fewer attributes are both determined and determining
+   * @return the candidate keys
+   * @throws IOException if every worker failed before the search was done
+   */
+  public synchronized Set<Set<String>> findCandidateKeys(Set<String> rel, FDSet fdset, int prefix)
+      throws IOException {
+    for (FD fd : fdset) {
+      if (!rel.containsAll(fd.left()) || !rel.containsAll(fd.right())) {
+        throw new IllegalArgumentException("Attributes in FDSet not present in relation.");
+      }
+    }
+    if (prefix < 0 || prefix > 20) {
+      throw new IllegalArgumentException("The prefix must be between 0 and 20, not " + prefix + ".");
+    }
+    Job job = Job.of(new AttributeIndex(rel), fdset, prefix);
+    AttributeIndex index = job.index;
+    int p = Long.bitCount(job.prefix);
+
+    BlockingDeque<Integer> pending = new LinkedBlockingDeque<>();
+    for (int shard = 0; shard < (1 << p); shard++) {
+      pending.add(shard);
+    }
+    AtomicInteger remaining = new AtomicInteger(1 << p);
+    AtomicReference<String> error = new AtomicReference<>();
+    List<IOException> lost = new ArrayList<>();
+    SetTrie<Long> keys = new SetTrie<>(index);
+
+    List<Thread> threads = new ArrayList<>();
+    for (Link link : this.links) {
+      if (!link.alive) {
+        continue;
+      }
+      Thread thread = new Thread(() -> this.drive(link, job, pending, remaining, error, lost, keys),
+          "shards-" + link.name);
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for the workers.", e);
+      }
+    }
+    if (error.get() != null) {
+      throw new IllegalStateException(error.get());
+    }
+    if (remaining.get() > 0) {
+      IOException failed = new IOException("Every worker failed with " + remaining.get() + " of " + (1 << p)
+          + " shards left.");
+      lost.forEach(failed::addSuppressed);
+      throw failed;
+    }
+    Set<Set<String>> result = new HashSet<>();
+    for (long key : keys.supersetsOf(0L)) {
+      result.add(index.decode(key));
+    }
+    return result;
+  }
+
+  /**
+   * Feeds shards to one worker until there are none left or the worker fails.
+   * A worker that stays silent past the socket timeout fails like one whose
+   * connection drops.
+   */
+  private void drive(Link link, Job job, BlockingDeque<Integer> pending, AtomicInteger remaining,
+      AtomicReference<String> error, List<IOException> lost, SetTrie<Long> keys) {
+    Integer shard = null;
+    try {
+      job.write(link.out);
+      while (remaining.get() > 0 && error.get() == null) {
+        shard = pending.poll(50, TimeUnit.MILLISECONDS);
+        if (shard == null) {
+          // the others may still fail and hand their shards back
+          continue;
+        }
+        link.out.writeByte(SHARD);
+        link.out.writeLong(job.shard(shard));
+        link.out.flush();
+        for (int type = link.in.read();; type = link.in.read()) {
+          if (type == KEY) {
+            merge(keys, link.in.readLong(), job.index);
+          } else if (type == HEARTBEAT) {
+            continue;
+          } else if (type == DONE) {
+            break;
+          } else if (type < 0) {
+            throw new EOFException("the connection was closed");
+          } else if (type == ERROR) {
+            error.compareAndSet(null, "Worker " + link.name + " failed: " + link.in.readUTF());
+            return;
+          } else {
+            throw new IOException("Unexpected message " + type + " from " + link.name);
+          }
+        }
+        shard = null;
+        remaining.decrementAndGet();
+      }
+    } catch (IOException e) {
+      // a SocketTimeoutException too: the worker hangs, so give it up
+      link.close();
+      synchronized (lost) {
+        lost.add(e);
+      }
+      PrintStream out = this.log;
+      if (out != null) {
+        out.println("Lost worker " + link.name + ": " + e);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (shard != null) {
+        // let another worker redo it
+        pending.addFirst(shard);
+      }
+    }
+  }
+
+  /**
+   * Adds a key unless it contains one already found, and drops the ones that
+   * contain it
+   */
+  private static void merge(SetTrie<Long> keys, long key, AttributeIndex index) {
+    synchronized (keys) {
+      if (keys.containsSubsetOf(key)) {
+        return;
+      }
+      for (long larger : keys.supersetsOf(key)) {
+        keys.remove(index.decode(larger));
+      }
+      keys.put(key, key);
+    }
+  }
+
+  /**
+   * Disconnects from the workers and stops the ones that launch() started
+   */
+  @Override
+  public void close() {
+    this.links.forEach(Link::close);
+    for (Process process : this.processes) {
+      process.destroy();
+    }
+  }
+
+  /**
+   * Searches one shard for the keys that are minimal within it: the subsets
+   * made of the core, the shard's prefix attributes and any of the middle
+   * attributes outside the prefix
+   *
+   * @param job     the search
+   * @param closure the FDs of the search
+   * @param in      which prefix attributes the shard's subsets have
+   * @param emit    where to send each key
+   * @param flush   called after every level
+   */
+  static void searchShard(Job job, BatchClosure closure, long in, LongConsumer emit, Runnable flush) {
+    long full = job.index.fullMask();
+    long base = job.core | in;
+    if (closure.closure(base) == full) {
+      emit.accept(base);
+      return;
+    }
+    long rest = job.middle & ~job.prefix;
+    int[] free = new int[Long.bitCount(rest)];
+    for (int i = 0; rest != 0; i++, rest &= rest - 1) {
+      free[i] = Long.numberOfTrailingZeros(rest);
+    }
+    SetTrie<Boolean> found = new SetTrie<>(job.index);
+    long[] batch = new long[BATCH];
+    long[] candidates = new long[BATCH];
+    long limit = 1L << free.length;
+    for (int k = 1; k <= free.length; k++) {
+      boolean any = false;
+      int n = 0;
+      // every k-subset of the free attributes, with Gosper's hack
+      for (long c = (1L << k) - 1; c < limit; ) {
+        long subset = base;
+        for (long bits = c; bits != 0; bits &= bits - 1) {
+          subset |= 1L << free[Long.numberOfTrailingZeros(bits)];
+        }
+        if (!found.containsSubsetOf(subset)) {
+          any = true;
+          candidates[n] = subset;
+          batch[n++] = subset;
+          if (n == BATCH) {
+            closeBatch(closure, batch, candidates, n, full, found, emit);
+            n = 0;
+          }
+        }
+        long low = c & -c;
+        long next = c + low;
+        c = next + (((next ^ c) / low) >>> 2);
+      }
+      closeBatch(closure, batch, candidates, n, full, found, emit);
+      flush.run();
+      if (!any) {
+        // every k-subset contains a key, so every larger one does too
+        break;
+      }
+    }
+  }
+
+  private static void closeBatch(BatchClosure closure, long[] batch, long[] candidates, int n, long full,
+      SetTrie<Boolean> found, LongConsumer emit) {
+    if (n == 0) {
+      return;
+    }
+    long[] sets = (n == batch.length) ? batch : Arrays.copyOf(batch, n);
+    closure.closeAll(sets);
+    for (int i = 0; i < n; i++) {
+      if (sets[i] == full) {
+        found.put(candidates[i], Boolean.TRUE);
+        emit.accept(candidates[i]);
+      }
+    }
+  }
+
+  /**
+   * Serves one coordinator connection until it closes
+   */
+  private static void work(Socket socket) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    // every write to out holds its lock, since the heartbeat shares it
+    AtomicBoolean busy = new AtomicBoolean();
+    Thread heartbeat = new Thread(() -> {
+      try {
+        while (true) {
+          Thread.sleep(HEARTBEAT_MILLIS);
+          synchronized (out) {
+            if (busy.get()) {
+              out.writeByte(HEARTBEAT);
+              out.flush();
+            }
+          }
+        }
+      } catch (InterruptedException | IOException e) {
+        // the connection is done
+      }
+    }, "heartbeat-" + socket.getRemoteSocketAddress());
+    heartbeat.setDaemon(true);
+    heartbeat.start();
+    try {
+      serve(in, out, busy);
+    } finally {
+      heartbeat.interrupt();
+    }
+  }
+
+  private static void serve(DataInputStream in, DataOutputStream out, AtomicBoolean busy) throws IOException {
+    Job job = null;
+    BatchClosure closure = null;
+    for (int type = in.read(); type >= 0; type = in.read()) {
+      if (type == JOB) {
+        job = Job.read(in);
+        FDSet fdset = new FDSet();
+        for (int i = 0; i < job.lhs.length; i++) {
+          fdset.add(new FD(job.index.decode(job.lhs[i]), job.index.decode(job.rhs[i])));
+        }
+        closure = BatchClosure.of(job.index, fdset);
+      } else if (type == SHARD) {
+        long shard = in.readLong();
+        busy.set(true);
+        try {
+          if (job == null) {
+            throw new IllegalStateException("A shard came before its job.");
+          }
+          searchShard(job, closure, shard, key -> {
+            try {
+              synchronized (out) {
+                out.writeByte(KEY);
+                out.writeLong(key);
+              }
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }, () -> {
+            try {
+              synchronized (out) {
+                out.flush();
+              }
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+          synchronized (out) {
+            busy.set(false);
+            out.writeByte(DONE);
+          }
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        } catch (RuntimeException e) {
+          synchronized (out) {
+            busy.set(false);
+            out.writeByte(ERROR);
+            out.writeUTF(String.valueOf(e));
+          }
+        }
+        synchronized (out) {
+          out.flush();
+        }
+      } else {
+        throw new IOException("Unexpected message " + type);
+      }
+    }
+  }
+
+  /**
+   * Usage: ShardedKeySearch -worker [-host h] [-port n] [-once]
+   * or: ShardedKeySearch [-workers n | -connect host:port,...] [-attributes a]
+   * [-fds f] [-prefix p]
+   *
+   * @param args command line arguments
+   */
+  public static void main(String[] args) throws IOException {
+    boolean worker = false;
+    boolean once = false;
+    String host = null;
+    int port = 8456;
+    int workers = 4;
+    String connect = null;
+    int attributes = 24;
+    int fds = 24;
+    int prefix = -1;
+    for (int i = 0; i < args.length; i++) {
+      boolean flag = args[i].equals("-worker") || args[i].equals("-once");
+      if (!flag && i + 1 == args.length) {
+        System.err.println("Usage: ShardedKeySearch -worker [-host h] [-port n] [-once]\n"
+            + "   or: ShardedKeySearch [-workers n | -connect host:port,...] [-attributes a] [-fds f] [-prefix p]");
+        System.exit(2);
+      }
+      switch (args[i]) {
+        case "-worker":
+          worker = true;
+          break;
+        case "-once":
+          once = true;
+          break;
+        case "-host":
+          host = args[++i];
+          break;
+        case "-port":
+          port = Integer.parseInt(args[++i]);
+          break;
+        case "-workers":
+          workers = Integer.parseInt(args[++i]);
+          break;
+        case "-connect":
+          connect = args[++i];
+          break;
+        case "-attributes":
+          attributes = Integer.parseInt(args[++i]);
+          break;
+        case "-fds":
+          fds = Integer.parseInt(args[++i]);
+          break;
+        case "-prefix":
+          prefix = Integer.parseInt(args[++i]);
+          break;
+        default:
+          System.err.println("Unknown option " + args[i]);
+          System.exit(2);
+      }
+    }
+
+    if (worker) {
+      InetAddress address = (host == null) ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+      try (ServerSocket server = new ServerSocket(port, 50, address)) {
+        System.out.println("Worker listening on port " + server.getLocalPort());
+        System.out.flush();
+        do {
+          Socket socket = server.accept();
+          Thread thread = new Thread(() -> {
+            try (Socket s = socket) {
+              s.setTcpNoDelay(true);
+              work(s);
+            } catch (IOException e) {
+              // the coordinator went away
+            }
+          }, "worker-" + socket.getRemoteSocketAddress());
+          if (once) {
+            thread.run();
+          } else {
+            thread.start();
+          }
+        } while (!once);
+      }
+      return;
+    }
+
+    FDGenerator.Workload workload = new FDGenerator(42).attributes(attributes).fds(fds).generate();
+    ShardedKeySearch search;
+    if (connect != null) {
+      List<InetSocketAddress> addresses = new ArrayList<>();
+      for (String address : connect.split(",")) {
+        int colon = address.lastIndexOf(':');
+        addresses.add(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+      }
+      search = connect(addresses);
+    } else {
+      search = launch(workers);
+    }
+    try (ShardedKeySearch s = search) {
+      s.setLog(System.err);
+      long start = System.nanoTime();
+      Set<Set<String>> keys = (prefix < 0) ? s.findCandidateKeys(workload.getRelation(), workload.getFDSet())
+          : s.findCandidateKeys(workload.getRelation(), workload.getFDSet(), prefix);
+      long sharded = System.nanoTime() - start;
+      start = System.nanoTime();
+      Set<Set<String>> expected = Normalizer.findCandidateKeys(workload.getRelation(), workload.getFDSet());
+      long local = System.nanoTime() - start;
+      System.out.printf("%d attributes, %d FDs, %d workers: %d candidate keys in %.1f ms (Lucchesi-Osborn: %.1f ms)%n",
+          attributes, fds, s.workers(), keys.size(), sharded / 1e6, local / 1e6);
+      if (!keys.equals(expected)) {
+        throw new IllegalStateException("The sharded search disagrees with Normalizer.findCandidateKeys.");
+      }
+    }
+  }
+}
@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A stripped partition (position list index) of the rows of a table: the rows
+ * grouped by their values on some set of columns X, with single-row groups
+ * left out. Rows agree on X exactly when they share a group, so X is unique
+ * when there are no groups at all, and X --> A holds exactly when the
+ * partitions of X and of X plus A have the same error.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+final class StrippedPartition {
+
+  /** What product returns when asked to stop at the first duplicate, and finds one */
+  private static final StrippedPartition NOT_UNIQUE = new StrippedPartition(new int[0][]);
+
+  /** Row numbers of every group with at least two rows, each in ascending order */
+  private final int[][] groups;
+  /** Total number of rows over all groups */
+  private final long size;
+
+  private StrippedPartition(int[][] groups) {
+    this.groups = groups;
+    long n = 0;
+    for (int[] group : groups) {
+      n += group.length;
+    }
+    this.size = n;
+  }
+
+  /**
+   * @param codes       the encoded values of one column
+   * @param cardinality one more than the largest code
+   * @return the stripped partition of the rows by that column
+   */
+  static StrippedPartition of(int[] codes, int cardinality) {
+    int[] counts = new int[cardinality];
+    for (int code : codes) {
+      counts[code]++;
+    }
+    int[][] byCode = new int[cardinality][];
+    int n = 0;
+    for (int code = 0; code < cardinality; code++) {
+      if (counts[code] > 1) {
+        byCode[code] = new int[counts[code]];
+        n++;
+      }
+      counts[code] = 0;
+    }
+    for (int row = 0; row < codes.length; row++) {
+      int[] group = byCode[codes[row]];
+      if (group != null) {
+        group[counts[codes[row]]++] = row;
+      }
+    }
+    int[][] groups = new int[n][];
+    int g = 0;
+    for (int[] group : byCode) {
+      if (group != null) {
+        groups[g++] = group;
+      }
+    }
+    return new StrippedPartition(groups);
+  }
+
+  /**
+   * @param rows the number of rows of the table
+   * @return the partition by no columns at all: every row in one group
+   */
+  static StrippedPartition all(int rows) {
+    if (rows < 2) {
+      return new StrippedPartition(new int[0][]);
+    }
+    int[] group = new int[rows];
+    for (int row = 0; row < rows; row++) {
+      group[row] = row;
+    }
+    return new StrippedPartition(new int[][] { group });
+  }
+
+  /**
+   * @return the number of rows that would have to be removed for the columns
+   *         to be unique (the sum over all groups of their size minus one)
+   */
+  long error() {
+    return this.size - this.groups.length;
+  }
+
+  /**
+   * @return true if no two rows agree on the columns
+   */
+  boolean isUnique() {
+    return this.groups.length == 0;
+  }
+
+  /**
+   * @return the number of groups
+   */
+  int groupCount() {
+    return this.groups.length;
+  }
+
+  /**
+   * @param g a group number
+   * @return the rows of the group (not to be modified)
+   */
+  int[] group(int g) {
+    return this.groups[g];
+  }
+
+  /**
+   * Intersects two partitions: the result groups rows that share a group in
+   * both. This is the partition by the union of the two column sets.
+   *
+   * @param other   a partition of the same rows
+   * @param scratch an array with one entry per row, all -1; it is left that way
+   * @return the product partition
+   */
+  StrippedPartition product(StrippedPartition other, int[] scratch) {
+    return this.product(other, scratch, false);
+  }
+
+  /**
+   * Tests whether the product of two partitions is unique, stopping at the
+   * first pair of rows that agree on both
+   *
+   * @param other   a partition of the same rows
+   * @param scratch an array with one entry per row, all -1; it is left that way
+   * @return true if the product partition has no groups
+   */
+  boolean productIsUnique(StrippedPartition other, int[] scratch) {
+    return this.product(other, scratch, true) != NOT_UNIQUE;
+  }
+
+  /**
+   * Computes the product; if stopAtFirst, returns NOT_UNIQUE as soon as two
+   * rows are found to agree instead of finishing
+   */
+  private StrippedPartition product(StrippedPartition other, int[] scratch, boolean stopAtFirst) {
+    for (int g = 0; g < this.groups.length; g++) {
+      for (int row : this.groups[g]) {
+        scratch[row] = g;
+      }
+    }
+    int[][] buckets = new int[this.groups.length][];
+    int[] lengths = new int[this.groups.length];
+    List<int[]> result = new ArrayList<>();
+    try {
+      for (int[] group : other.groups) {
+        for (int row : group) {
+          int g = scratch[row];
+          if (g >= 0) {
+            if (buckets[g] == null) {
+              buckets[g] = new int[this.groups[g].length];
+            }
+            buckets[g][lengths[g]++] = row;
+          }
+        }
+        for (int row : group) {
+          int g = scratch[row];
+          if (g >= 0 && lengths[g] > 0) {
+            if (lengths[g] > 1) {
+              if (stopAtFirst) {
+                return NOT_UNIQUE;
+              }
+              result.add(Arrays.copyOf(buckets[g], lengths[g]));
+            }
+            lengths[g] = 0;
+          }
+        }
+      }
+    } finally {
+      for (int[] group : this.groups) {
+        for (int row : group) {
+          scratch[row] = -1;
+        }
+      }
+    }
+    return new StrippedPartition(result.toArray(new int[0][]));
+  }
+}
@@ -0,0 +1,67 @@
+package vector;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD kernel of BatchClosure: closes one register's worth of attribute
+ * sets at a time, one set per long lane. Every FD is broadcast to all lanes
+ * and applied under the mask of the lanes that contain its left-hand side,
+ * until no lane changes. Leftover sets at the end of a range are closed one
+ * at a time.
+ *
+ * Needs --add-modules jdk.incubator.vector to compile and run. BatchClosure
+ * lives in the default package, which a named package cannot see, so this
+ * class does not implement its Kernel interface; BatchClosure looks up the
+ * static close method reflectively when -Dfd.vector=true is given.
+ *
+ * @author Alex
+ * @version 2026-10-19
+ */
+public final class VectorClosureKernel {
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  private VectorClosureKernel() {
+  }
+
+  /**
+   * Closes sets[from..to) in place against the FDs lhs[i] --> rhs[i]
+   *
+   * @param lhs  the left-hand sides as bitsets
+   * @param rhs  the right-hand sides as bitsets
+   * @param sets the attribute sets to close
+   * @param from the first set to close
+   * @param to   one past the last set to close
+   */
+  public static void close(long[] lhs, long[] rhs, long[] sets, int from, int to) {
+    int s = from;
+    for (int upper = from + SPECIES.loopBound(to - from); s < upper; s += SPECIES.length()) {
+      LongVector x = LongVector.fromArray(SPECIES, sets, s);
+      LongVector before;
+      do {
+        before = x;
+        for (int i = 0; i < lhs.length; i++) {
+          VectorMask<Long> contains = x.and(lhs[i]).eq(lhs[i]);
+          x = x.lanewise(VectorOperators.OR, rhs[i], contains);
+        }
+      } while (!x.eq(before).allTrue());
+      x.intoArray(sets, s);
+    }
+    for (; s < to; s++) {
+      long x = sets[s];
+      long before;
+      do {
+        before = x;
+        for (int i = 0; i < lhs.length; i++) {
+          if ((lhs[i] & ~x) == 0) {
+            x |= rhs[i];
+          }
+        }
+      } while (x != before);
+      sets[s] = x;
+    }
+  }
+}